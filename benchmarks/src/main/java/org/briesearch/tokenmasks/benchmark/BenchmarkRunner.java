@@ -0,0 +1,34 @@
+package org.briesearch.tokenmasks.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar. Accepts the regular JMH command line, always attaches the GC profiler for
+ * allocation rates and writes the results as JSON (jmh-result.json unless -rff is given), so runs of two versions
+ * can be compared.
+ *
+ * @author Brissach
+ * @since 17.10.2026 19:44
+ * © token-masks - All Rights Reserved
+ */
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() {
+  }
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    CommandLineOptions options = new CommandLineOptions(args);
+    new Runner(new OptionsBuilder()
+      .parent(options)
+      .addProfiler(GCProfiler.class)
+      .resultFormat(options.getResultFormat().orElse(ResultFormatType.JSON))
+      .build()
+    ).run();
+  }
+}
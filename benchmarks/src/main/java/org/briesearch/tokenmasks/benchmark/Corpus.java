@@ -0,0 +1,86 @@
+package org.briesearch.tokenmasks.benchmark;
+
+import org.briesearch.tokenmasks.Model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Corpus generates a reproducible synthetic corpus, so that benchmark runs on different versions measure the same
+ * input. Words are random lowercase strings, sentences mix them with the punctuation of the default delimiter.
+ *
+ * @author Brissach
+ * @since 17.10.2026 19:20
+ * © token-masks - All Rights Reserved
+ */
+final class Corpus {
+
+  private static final String PUNCTUATION = ",.!?";
+
+  private final Random random;
+  private final List<String> words;
+
+  /**
+   * @param vocabulary The number of distinct words.
+   * @param seed The seed of the generator.
+   */
+  Corpus(int vocabulary, long seed) {
+    this.random = new Random(seed);
+    Set<String> words = new LinkedHashSet<>();
+    while (words.size() < vocabulary) {
+      char[] word = new char[2 + random.nextInt(7)];
+      for (int i = 0; i < word.length; i++)
+        word[i] = (char) ('a' + random.nextInt(26));
+      words.add(new String(word));
+    }
+    this.words = new ArrayList<>(words);
+  }
+
+  List<String> words() {
+    return words;
+  }
+
+  /**
+   * @param length The number of words.
+   * @return A sentence of the given number of words, every few words followed by punctuation.
+   */
+  String sentence(int length) {
+    StringBuilder sentence = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      if (i > 0) sentence.append(' ');
+      sentence.append(words.get(random.nextInt(words.size())));
+      if (random.nextInt(5) == 0)
+        sentence.append(PUNCTUATION.charAt(random.nextInt(PUNCTUATION.length())));
+    }
+    return sentence.toString();
+  }
+
+  List<String> sentences(int count, int length) {
+    List<String> sentences = new ArrayList<>(count);
+    for (int i = 0; i < count; i++)
+      sentences.add(sentence(length));
+    return sentences;
+  }
+
+  /**
+   * @return Samples with a single masked word each, without punctuation so every target is a known word.
+   */
+  Map<String, String> samples(int count, int length) {
+    Map<String, String> samples = new HashMap<>();
+    while (samples.size() < count) {
+      String[] sentence = new String[length];
+      for (int i = 0; i < length; i++)
+        sentence[i] = words.get(random.nextInt(words.size()));
+      int mask = random.nextInt(length);
+      String target = sentence[mask];
+      sentence[mask] = Model.MASK;
+      samples.put(String.join(" ", sentence), target);
+    }
+    return samples;
+  }
+}
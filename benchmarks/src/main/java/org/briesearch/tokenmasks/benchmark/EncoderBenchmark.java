@@ -0,0 +1,99 @@
+package org.briesearch.tokenmasks.benchmark;
+
+import org.briesearch.tokenmasks.EncodedRow;
+import org.briesearch.tokenmasks.OneHotEncoder;
+import org.briesearch.tokenmasks.PositionalEncoder;
+import org.briesearch.tokenmasks.tokenizer.Tokenizer;
+import org.briesearch.tokenmasks.tokenizer.TokenizerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the positional and one-hot encoding of a sentence, including its tokenization, both into fresh vectors and
+ * from token ids into reused rows.
+ *
+ * @author Brissach
+ * @since 17.10.2026 19:31
+ * © token-masks - All Rights Reserved
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncoderBenchmark {
+
+  private static final int SENTENCES = 256;
+
+  @Param({"1000", "10000"})
+  public int vocabulary;
+
+  @Param({"8", "64"})
+  public int sentenceLength;
+
+  @Param({"16", "32", "64"})
+  public int n_vocab;
+
+  private final PositionalEncoder positional = new PositionalEncoder();
+  private final OneHotEncoder onehot = new OneHotEncoder();
+  private Tokenizer tokenizer;
+  private List<String> sentences;
+  private int next;
+  private int[] ids;
+  private EncodedRow positionalRow;
+  private EncodedRow onehotRow;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Corpus corpus = new Corpus(vocabulary, 42L);
+    tokenizer = new TokenizerBuilder().build();
+    tokenizer.fit(corpus.words());
+    sentences = corpus.sentences(SENTENCES, sentenceLength);
+    ids = new int[sentenceLength * 2];
+    positionalRow = EncodedRow.of(new double[positional.dimension(tokenizer.size(), n_vocab)]);
+    onehotRow = EncodedRow.of(new double[onehot.dimension(tokenizer.size(), n_vocab)]);
+  }
+
+  private String nextSentence() {
+    next = (next + 1) % SENTENCES;
+    return sentences.get(next);
+  }
+
+  @Benchmark
+  public double[] positional() {
+    return positional.encode(tokenizer, nextSentence(), n_vocab);
+  }
+
+  @Benchmark
+  public double[] onehot() {
+    return onehot.encode(tokenizer, nextSentence(), n_vocab);
+  }
+
+  @Benchmark
+  public EncodedRow positionalInto() {
+    int length = tokenizer.tokenizeIds(nextSentence(), ids, 0);
+    positional.encode(tokenizer, ids, length, tokenizer.size(), n_vocab, positionalRow);
+    return positionalRow;
+  }
+
+  @Benchmark
+  public EncodedRow onehotInto() {
+    int length = tokenizer.tokenizeIds(nextSentence(), ids, 0);
+    onehot.encode(tokenizer, ids, length, tokenizer.size(), n_vocab, onehotRow);
+    return onehotRow;
+  }
+}
@@ -0,0 +1,95 @@
+package org.briesearch.tokenmasks.benchmark;
+
+import io.arctis.aurora.algebraic.ContextVector;
+import io.arctis.aurora.ops.Kwargs;
+import org.briesearch.tokenmasks.Model;
+import org.briesearch.tokenmasks.tokenizer.TokenizerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures training and inference of a {@link Model} built with the default network.
+ *
+ * @author Brissach
+ * @since 17.10.2026 19:37
+ * © token-masks - All Rights Reserved
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelBenchmark {
+
+  private static final int SAMPLES = 256;
+  /* largest preference below the initial loss of the trainer, stops training after exactly one epoch */
+  private static final double ONE_EPOCH = Math.nextDown(Double.MAX_VALUE);
+
+  @Param({"200", "1000"})
+  public int vocabulary;
+
+  @Param({"8", "16"})
+  public int sentenceLength;
+
+  @Param({"16", "32"})
+  public int n_vocab;
+
+  private Model model;
+  private Map<String, String> samples;
+  private List<String> queries;
+  private double[] probabilities;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Corpus corpus = new Corpus(vocabulary, 42L);
+    samples = corpus.samples(SAMPLES, sentenceLength);
+    model = new Model(new TokenizerBuilder().build(), samples, new Kwargs("n_vocab", n_vocab)).construct();
+    model.forward(samples, 0.1, ONE_EPOCH);
+
+    queries = new ArrayList<>(samples.keySet());
+    probabilities = model.predict(queries.get(0));
+  }
+
+  private String nextQuery() {
+    next = (next + 1) % queries.size();
+    return queries.get(next);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public Model forwardEpoch() {
+    model.forward(samples, 0.1, ONE_EPOCH);
+    return model;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public String generate() {
+    return model.generate(nextQuery(), 0.7);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public int randomSampleToken() {
+    // sampling transforms the vector in place, so every invocation samples from a fresh copy
+    return model.randomSampleToken(ContextVector.vector(probabilities.clone()), 0.7);
+  }
+}
@@ -0,0 +1,80 @@
+package org.briesearch.tokenmasks.benchmark;
+
+import org.briesearch.tokenmasks.tokenizer.Tokenizer;
+import org.briesearch.tokenmasks.tokenizer.TokenizerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Tokenizer#tokenize(String)} in simple (whitespace) and delimiter mode over a fitted vocabulary.
+ *
+ * @author Brissach
+ * @since 17.10.2026 19:26
+ * © token-masks - All Rights Reserved
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizerBenchmark {
+
+  private static final int SENTENCES = 256;
+
+  @Param({"1000", "10000"})
+  public int vocabulary;
+
+  @Param({"8", "64"})
+  public int sentenceLength;
+
+  @Param({"simple", "delimiter"})
+  public String mode;
+
+  private Tokenizer tokenizer;
+  private List<String> sentences;
+  private int[] ids;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Corpus corpus = new Corpus(vocabulary, 42L);
+    TokenizerBuilder builder = new TokenizerBuilder();
+    if (mode.equals("simple"))
+      builder.simpleTokens();
+    tokenizer = builder.build();
+    tokenizer.fit(corpus.words());
+
+    sentences = corpus.sentences(SENTENCES, sentenceLength);
+    ids = new int[sentenceLength * 2];
+  }
+
+  private String nextSentence() {
+    next = (next + 1) % SENTENCES;
+    return sentences.get(next);
+  }
+
+  @Benchmark
+  public List<String> tokenize() {
+    return tokenizer.tokenize(nextSentence());
+  }
+
+  @Benchmark
+  public int tokenizeIds() {
+    tokenizer.tokenizeIds(nextSentence(), ids, 0);
+    return ids[0];
+  }
+}
@@ -0,0 +1,329 @@
+package org.briesearch.tokenmasks;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.LongPredicate;
+
+/**
+ * BatchPipeline reads a source of samples into encoded batches. Batches live in a fixed ring of preallocated slots that
+ * are reused for the whole training, so streaming allocates no rows after the first pass.
+ * <p>
+ * With a depth of 2 or more, a producer thread reads the source and encodes batches into free slots while the calling
+ * thread consumes the encoded ones: with 2 slots, the next batch is encoded while the current one trains (double
+ * buffering). Batches are consumed in source order, so training is identical to the synchronous pipeline (depth 1),
+ * which reads, encodes and consumes every batch on the calling thread. A full training batch is only handed on once
+ * the next training sample is read, so the last training batch of every pass is known as such.
+ *
+ * @author Brissach
+ * @since 17.10.2026 22:14
+ * © token-masks - All Rights Reserved
+ */
+final class BatchPipeline<T> {
+
+  private final Trainer.BatchEncoder<T> encoder;
+  private final Trainer trainer;
+  private final int batch;
+  private final Slot<?>[] slots;
+
+  /**
+   * @param encoder The encoder writing samples into slot rows.
+   * @param trainer The trainer whose executor encodes the rows of a batch in parallel.
+   * @param batch The number of rows per slot.
+   * @param depth The number of batches in the ring, 1 for no pipelining. One more slot lets a validation batch fill
+   *              next to the training batches.
+   */
+  BatchPipeline(Trainer.BatchEncoder<T> encoder, Trainer trainer, int batch, int depth) {
+    this.encoder = encoder;
+    this.trainer = trainer;
+    this.batch = batch;
+    // a validation batch may be filling next to every training batch
+    this.slots = new Slot<?>[Math.max(1, depth) + 1];
+  }
+
+  /**
+   * Receives encoded batches in source order.
+   */
+  interface Sink {
+    /**
+     * @param inputs The input rows of the batch.
+     * @param outputs The output rows of the batch.
+     * @param validation Whether the batch holds held out samples.
+     * @param last Whether the batch is the last training batch of the pass.
+     */
+    void accept(double[][] inputs, double[][] outputs, boolean validation, boolean last);
+  }
+
+  /**
+   * Reads one pass over the source, closing the iterator afterwards if it is {@link AutoCloseable}.
+   *
+   * @param source The source of the samples.
+   * @param heldOut Whether the sample at an index of the pass is held out for validation.
+   * @param validate Whether held out samples are passed on, otherwise they are skipped.
+   * @param sink The consumer of the batches, invoked on the calling thread.
+   */
+  void pass(@Nonnull Iterable<T> source, @Nonnull LongPredicate heldOut, boolean validate, @Nonnull Sink sink) {
+    if (slots.length <= 2) {
+      read(source, heldOut, validate, new Inline(sink));
+      return;
+    }
+
+    Pipelined pipelined = new Pipelined();
+    Thread producer = new Thread(() -> pipelined.produce(source, heldOut, validate), "token-masks-pipeline");
+    producer.setDaemon(true);
+    producer.start();
+    try {
+      pipelined.consume(sink);
+    } finally {
+      pipelined.stopped = true;
+      producer.interrupt();
+      join(producer);
+    }
+    pipelined.rethrow();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Slot<T> slot(int index) {
+    if (slots[index] == null)
+      slots[index] = new Slot<>(encoder, batch, index * batch);
+    return (Slot<T>) slots[index];
+  }
+
+  /**
+   * Reads the source into slots taken from and handed to the given channel.
+   */
+  private void read(Iterable<T> source, LongPredicate heldOut, boolean validate, Channel<T> channel) {
+    Iterator<T> cursor = source.iterator();
+    try {
+      Slot<T> training = null;
+      Slot<T> full = null;
+      Slot<T> validation = null;
+      for (long index = 0; cursor.hasNext(); index++) {
+        T sample = cursor.next();
+        if (!heldOut.test(index)) {
+          if (full != null) {
+            channel.put(encode(full));
+            full = null;
+          }
+          if (training == null) training = channel.take(false);
+          if (training.add(sample)) {
+            full = training;
+            training = null;
+          }
+        } else if (validate) {
+          if (validation == null) validation = channel.take(true);
+          if (validation.add(sample)) {
+            channel.put(encode(validation));
+            validation = null;
+          }
+        }
+      }
+      Slot<T> last = full != null ? full : training;
+      if (last != null) {
+        last.last = true;
+        channel.put(encode(last));
+      }
+      if (validation != null) channel.put(encode(validation));
+    } finally {
+      close(cursor);
+    }
+  }
+
+  private static void close(Iterator<?> cursor) {
+    if (!(cursor instanceof AutoCloseable)) return;
+    try {
+      ((AutoCloseable) cursor).close();
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException("The sample cursor cannot be closed", e);
+    }
+  }
+
+  private Slot<T> encode(Slot<T> slot) {
+    slot.view();
+    trainer.parallel(slot.size, r -> encoder.encode(slot.rowOffset + r, slot.sample(r), slot.inputs[r], slot.outputs[r]));
+    return slot;
+  }
+
+  private static void join(Thread thread) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        thread.join();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) Thread.currentThread().interrupt();
+  }
+
+  /**
+   * Hands filled slots from the reading to the consuming side.
+   */
+  private interface Channel<T> {
+    Slot<T> take(boolean validation);
+
+    void put(Slot<T> slot);
+  }
+
+  /**
+   * Consumes every batch right after it is encoded, reusing one slot for training and one for validation.
+   */
+  private final class Inline implements Channel<T> {
+
+    private final Sink sink;
+
+    Inline(Sink sink) {
+      this.sink = sink;
+    }
+
+    @Override
+    public Slot<T> take(boolean validation) {
+      Slot<T> slot = slot(validation ? 1 : 0);
+      slot.validation = validation;
+      return slot;
+    }
+
+    @Override
+    public void put(Slot<T> slot) {
+      sink.accept(slot.in, slot.out, slot.validation, slot.last);
+      slot.clear();
+    }
+  }
+
+  /**
+   * Passes slots between a producer thread and the consuming thread through a bounded ring.
+   */
+  private final class Pipelined implements Channel<T> {
+
+    private final Slot<T> end = new Slot<>();
+    private final BlockingQueue<Slot<T>> free = new ArrayBlockingQueue<>(slots.length);
+    private final BlockingQueue<Slot<T>> filled = new ArrayBlockingQueue<>(slots.length + 1);
+    private volatile Throwable failure;
+    private volatile boolean stopped;
+
+    Pipelined() {
+      for (int i = 0; i < slots.length; i++)
+        free.add(slot(i));
+    }
+
+    void produce(Iterable<T> source, LongPredicate heldOut, boolean validate) {
+      try {
+        read(source, heldOut, validate, this);
+      } catch (Throwable t) {
+        if (stopped) return; // the consumer failed, its failure is the one reported
+        failure = t;
+      }
+      filled.add(end);
+    }
+
+    void consume(Sink sink) {
+      while (true) {
+        Slot<T> slot;
+        try {
+          slot = filled.take();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrupted while waiting for encoded batches", e);
+        }
+        if (slot == end) return;
+
+        sink.accept(slot.in, slot.out, slot.validation, slot.last);
+        slot.clear();
+        free.add(slot);
+      }
+    }
+
+    void rethrow() {
+      Throwable cause = failure;
+      if (cause == null) return;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw new IllegalStateException(cause);
+    }
+
+    @Override
+    public Slot<T> take(boolean validation) {
+      try {
+        Slot<T> slot = free.take();
+        slot.validation = validation;
+        return slot;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for a free batch", e);
+      }
+    }
+
+    @Override
+    public void put(Slot<T> slot) {
+      filled.add(slot);
+    }
+  }
+
+  /**
+   * Preallocated rows of one batch with the samples collected for them.
+   */
+  private static final class Slot<T> {
+
+    private final int rowOffset;
+    private final Object[] pending;
+    private final double[][] inputs;
+    private final double[][] outputs;
+    private double[][] in;
+    private double[][] out;
+    private int size;
+    private boolean validation;
+    private boolean last;
+
+    /**
+     * @param rowOffset The offset of the row indices handed to the encoder, distinct per slot.
+     */
+    Slot(Trainer.BatchEncoder<T> encoder, int batch, int rowOffset) {
+      this.rowOffset = rowOffset;
+      this.pending = new Object[batch];
+      this.inputs = new double[batch][encoder.inputWidth()];
+      this.outputs = new double[batch][encoder.outputWidth()];
+    }
+
+    /**
+     * The end marker of a pass.
+     */
+    Slot() {
+      this.rowOffset = 0;
+      this.pending = new Object[0];
+      this.inputs = new double[0][];
+      this.outputs = new double[0][];
+    }
+
+    /**
+     * @return Whether the slot is full.
+     */
+    boolean add(T sample) {
+      pending[size++] = sample;
+      return size == pending.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    T sample(int row) {
+      return (T) pending[row];
+    }
+
+    /**
+     * Points in and out at the rows of the collected samples.
+     */
+    void view() {
+      in = size == inputs.length ? inputs : Arrays.copyOf(inputs, size);
+      out = size == outputs.length ? outputs : Arrays.copyOf(outputs, size);
+    }
+
+    void clear() {
+      Arrays.fill(pending, 0, size, null);
+      size = 0;
+      last = false;
+    }
+  }
+}
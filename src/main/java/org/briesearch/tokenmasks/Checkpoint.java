@@ -0,0 +1,474 @@
+package org.briesearch.tokenmasks;
+
+import com.google.common.base.Preconditions;
+import io.arctis.aurora.ops.Kwargs;
+import io.arctis.aurora_deep.MultiLayerNeuralNetwork;
+import org.briesearch.tokenmasks.tokenizer.AbstractTokenizer;
+import org.briesearch.tokenmasks.tokenizer.Tokenizer;
+import org.briesearch.tokenmasks.tokenizer.TokenizerBuilder;
+import org.briesearch.tokenmasks.tokenizer.TokenizerImpl;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Checkpoint persists a trained {@link Model} in a compact, versioned binary format and restores it by memory-mapping
+ * the file instead of retraining. All values are big-endian:
+ * <pre>
+ *   int    magic ("TMCK"), int version
+ *   int    n_vocab, int n_tokens (including reserved slots), long seed, int d_model, int flags (bit 0: sparse),
+ *          int n_masks (since version 3)
+ *   int    tokenizer options (bit 0: configuration present, 1: lowercase, 2: simple tokens, 3: find nearest,
+ *          4: include unseen, 5: fit upon tokenization, 6: unknown token), int delimiter pattern flags, then the
+ *          delimiter pattern and the delimiter characters (since version 2), each as int length (-1 if absent) and
+ *          UTF-8 bytes, then int min frequency and int max vocabulary (since version 4)
+ *   int    vocabulary size, then per token in id order: int length, UTF-8 bytes
+ *   ...    zero padding to a multiple of 8 bytes
+ *   int    embedding rows, int reserved, then rows * d_model doubles
+ *   long   network length, then the serialized network
+ * </pre>
+ * The embedding section is read in bulk from the mapped file. The aurora network does not expose its layer weights,
+ * so its section holds the serialized network object, which is deserialized straight from the mapped region. Only
+ * aurora classes, arrays, plain value types, the common java.util collections and serialized lambdas are resolved
+ * while reading it, any other class in the stream fails the load, so a crafted checkpoint cannot instantiate arbitrary
+ * serializable classes.
+ *
+ * @author Brissach
+ * @since 17.10.2026 16:40
+ * © token-masks - All Rights Reserved
+ */
+public final class Checkpoint {
+
+  static final int MAGIC = 0x544D434B;
+  static final int VERSION = 4;
+
+  private Checkpoint() {
+  }
+
+  /**
+   * Writes a checkpoint of the model. The file is written next to its target first and moved into place
+   * once complete, so a crash never leaves a truncated checkpoint behind.
+   *
+   * @param model The model to persist, must be constructed.
+   * @param file The checkpoint file.
+   * @throws IOException If the checkpoint cannot be written or the network is not serializable.
+   */
+  public static void save(@Nonnull Model model, @Nonnull Path file) throws IOException {
+    Preconditions.checkState(model.network() != null, "Model must be constructed before it can be saved");
+
+    byte[] network = serialize(model.network());
+    Encoder input = model.input();
+    double[][] embeddings = input instanceof CooccurrenceEncoder
+      ? ((CooccurrenceEncoder) input).table()
+      : new double[0][];
+    int d_model = input instanceof CooccurrenceEncoder ? ((CooccurrenceEncoder) input).dModel() : 0;
+
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(model.n_vocab());
+      out.writeInt(model.n_tokens());
+      out.writeLong(model.seed());
+      out.writeInt(d_model);
+      out.writeInt(model.sparse() ? 1 : 0);
+      out.writeInt(model.n_masks());
+
+      Tokenizer tokenizer = model.tokenizer();
+      TokenizerConfig.of(tokenizer).write(out);
+
+      int size = tokenizer.size();
+      out.writeInt(size);
+      for (int id = 0; id < size; id++) {
+        byte[] word = tokenizer.wordOf(id).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(word.length);
+        out.write(word);
+      }
+
+      while (out.size() % 8 != 0)
+        out.writeByte(0);
+
+      out.writeInt(embeddings.length);
+      out.writeInt(0);
+      for (double[] row : embeddings)
+        for (double value : row)
+          out.writeDouble(value);
+
+      out.writeLong(network.length);
+      out.write(network);
+    }
+    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Restores a model from a checkpoint, together with a tokenizer configured from the settings the checkpoint
+   * recorded.
+   *
+   * @param file The checkpoint file.
+   * @return The restored, constructed model.
+   * @throws IOException If the file is not a valid checkpoint or was written by a tokenizer that does not expose its
+   *                     configuration, see {@link #load(Path, Tokenizer)}.
+   */
+  @Nonnull
+  public static Model load(@Nonnull Path file) throws IOException {
+    return restore(file, null);
+  }
+
+  /**
+   * Restores a model from a checkpoint. The vocabulary is registered into the given tokenizer in id order,
+   * so the tokenizer must be fresh (holding at most its reserved tokens) and configured like the one the model
+   * was trained with.
+   *
+   * @param file The checkpoint file.
+   * @param tokenizer A fresh tokenizer.
+   * @return The restored, constructed model.
+   * @throws IOException If the file is not a valid checkpoint, the tokenizer is configured differently than the
+   *                     recorded one or does not reproduce its vocabulary.
+   */
+  @Nonnull
+  public static Model load(@Nonnull Path file, @Nonnull Tokenizer tokenizer) throws IOException {
+    Preconditions.checkNotNull(tokenizer, "tokenizer");
+    return restore(file, tokenizer);
+  }
+
+  private static Model restore(Path file, Tokenizer given) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE)
+        throw new IOException("Checkpoint " + file + " exceeds 2 GB");
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    if (buffer.remaining() < 8 || buffer.getInt() != MAGIC)
+      throw new IOException(file + " is not a token-masks checkpoint");
+    int version = buffer.getInt();
+    if (version < 1 || version > VERSION)
+      throw new IOException("Unsupported checkpoint version " + version + ", expected up to " + VERSION);
+
+    int n_vocab = buffer.getInt();
+    int n_tokens = buffer.getInt();
+    long seed = buffer.getLong();
+    int d_model = buffer.getInt();
+    boolean sparse = (buffer.getInt() & 1) != 0;
+    int n_masks = version >= 3 ? buffer.getInt() : 1;
+
+    TokenizerConfig config = TokenizerConfig.read(buffer, version);
+    Tokenizer tokenizer;
+    if (given == null) {
+      if (config == TokenizerConfig.ABSENT)
+        throw new IOException("Checkpoint " + file + " records no tokenizer configuration, pass a tokenizer");
+      tokenizer = config.build();
+    } else {
+      String setting = config.mismatch(given);
+      if (setting != null)
+        throw new IOException("Tokenizer differs from the checkpoint in its " + setting + " setting");
+      tokenizer = given;
+    }
+
+    int size = buffer.getInt();
+    for (int id = 0; id < size; id++) {
+      byte[] bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      String word = new String(bytes, StandardCharsets.UTF_8);
+      tokenizer.fit(word);
+      if (tokenizer.indexOf(word) != id)
+        throw new IOException("Tokenizer does not reproduce the checkpoint vocabulary at token '" + word + "'");
+    }
+    if (tokenizer.size() != size)
+      throw new IOException("Tokenizer holds " + tokenizer.size() + " tokens, the checkpoint " + size);
+
+    buffer.position((buffer.position() + 7) & ~7);
+
+    int rows = buffer.getInt();
+    buffer.getInt();
+    CooccurrenceEncoder embeddings = null;
+    if (d_model > 0) {
+      DoubleBuffer section = buffer.asDoubleBuffer();
+      embeddings = new CooccurrenceEncoder(d_model, seed);
+      embeddings.restore(section, rows);
+    }
+    buffer.position(buffer.position() + rows * d_model * Double.BYTES);
+
+    long length = buffer.getLong();
+    ByteBuffer section = buffer.slice();
+    section.limit((int) length);
+    MultiLayerNeuralNetwork network = deserialize(section);
+
+    if (n_tokens < size)
+      throw new IOException("Checkpoint declares " + n_tokens + " token slots for " + size + " tokens");
+
+    Kwargs kwargs = new Kwargs(
+      "n_vocab", n_vocab,
+      "seed", seed,
+      "d_model", d_model,
+      "sparse", sparse,
+      "n_masks", n_masks,
+      "reserve_tokens", n_tokens - size
+    );
+
+    Model model = new Model(tokenizer, null, kwargs, embeddings).construct(network);
+    if (model.n_tokens() != n_tokens)
+      throw new IOException("Checkpoint declares " + n_tokens + " tokens but holds " + model.n_tokens());
+    return model;
+  }
+
+  static byte[] serialize(MultiLayerNeuralNetwork network) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(network);
+    } catch (NotSerializableException e) {
+      throw new IOException("Network " + network.getClass().getName() + " cannot be checkpointed", e);
+    }
+    return bytes.toByteArray();
+  }
+
+  static MultiLayerNeuralNetwork deserialize(ByteBuffer section) throws IOException {
+    try (ObjectInputStream in = new NetworkInputStream(new BufferInputStream(section))) {
+      return (MultiLayerNeuralNetwork) in.readObject();
+    } catch (ClassNotFoundException | ClassCastException e) {
+      throw new IOException("Checkpoint network section is invalid", e);
+    }
+  }
+
+  /**
+   * Collections, object arrays and serialized lambdas are permitted as containers only: every class of their elements
+   * and captured values is resolved through the same check.
+   *
+   * @param name The binary name of a class, as found in a serialization stream.
+   * @return Whether the class may be resolved while reading a network section.
+   */
+  static boolean permitted(String name) {
+    int dimensions = 0;
+    while (dimensions < name.length() && name.charAt(dimensions) == '[')
+      dimensions++;
+    if (dimensions > 0) {
+      String component = name.substring(dimensions);
+      if (component.length() == 1)
+        return "ZBCSIJFD".indexOf(component.charAt(0)) != -1;
+      if (!component.startsWith("L") || !component.endsWith(";"))
+        return false;
+      name = component.substring(1, component.length() - 1);
+    }
+    for (String prefix : PERMITTED_PACKAGES)
+      if (name.startsWith(prefix)) return true;
+    return PERMITTED_CLASSES.contains(name);
+  }
+
+  private static final String[] PERMITTED_PACKAGES = {"io.arctis.aurora.", "io.arctis.aurora_deep."};
+
+  private static final Set<String> PERMITTED_CLASSES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+    "java.lang.String", "java.lang.Number", "java.lang.Enum", "java.lang.Boolean", "java.lang.Character",
+    "java.lang.Byte", "java.lang.Short", "java.lang.Integer", "java.lang.Long", "java.lang.Float", "java.lang.Double",
+    "java.lang.Object", "java.lang.invoke.SerializedLambda", "java.util.Random",
+    "java.util.ArrayList", "java.util.LinkedList", "java.util.ArrayDeque", "java.util.HashMap",
+    "java.util.LinkedHashMap", "java.util.TreeMap", "java.util.HashSet", "java.util.LinkedHashSet", "java.util.TreeSet"
+  )));
+
+  /**
+   * Resolves only the classes a network section may hold, see {@link #permitted(String)}.
+   */
+  private static final class NetworkInputStream extends ObjectInputStream {
+
+    NetworkInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass descriptor) throws IOException, ClassNotFoundException {
+      if (!permitted(descriptor.getName()))
+        throw new InvalidClassException(descriptor.getName(), "not permitted in a checkpoint network section");
+      return super.resolveClass(descriptor);
+    }
+
+    @Override
+    protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+      throw new InvalidClassException("Proxy classes are not permitted in a checkpoint network section");
+    }
+  }
+
+  /**
+   * The tokenizer settings a checkpoint records, so the vocabulary is tokenized the same way after loading.
+   */
+  private static final class TokenizerConfig {
+
+    static final TokenizerConfig ABSENT = new TokenizerConfig(0, 0, null, null, 1, Integer.MAX_VALUE);
+
+    private static final int PRESENT = 1, LOWERCASE = 1 << 1, SIMPLE = 1 << 2, NEAREST = 1 << 3, UNSEEN = 1 << 4,
+      FIT = 1 << 5, UNKNOWN = 1 << 6;
+
+    private final int options;
+    private final int patternFlags;
+    private final String pattern;
+    private final String chars;
+    private final int minFrequency;
+    private final int maxVocabulary;
+
+    private TokenizerConfig(int options, int patternFlags, String pattern, String chars, int minFrequency,
+                            int maxVocabulary) {
+      this.options = options;
+      this.patternFlags = patternFlags;
+      this.pattern = pattern;
+      this.chars = chars;
+      this.minFrequency = minFrequency;
+      this.maxVocabulary = maxVocabulary;
+    }
+
+    /**
+     * Captures the settings of a tokenizer. A frozen tokenizer records registrations as disabled.
+     */
+    static TokenizerConfig of(Tokenizer tokenizer) {
+      if (!(tokenizer instanceof AbstractTokenizer)) return ABSENT;
+      AbstractTokenizer source = (AbstractTokenizer) tokenizer;
+      int options = PRESENT
+        | (source.lowercaseTokens() ? LOWERCASE : 0)
+        | (source.simpleTokens() ? SIMPLE : 0)
+        | (source.findNearestToken() ? NEAREST : 0)
+        | (source.allowRegistrations() ? UNSEEN : 0)
+        | (source.fitUponTokenization() ? FIT : 0)
+        | (source.unknownToken() ? UNKNOWN : 0);
+      Pattern delimiter = source.delimiter();
+      return new TokenizerConfig(
+        options, delimiter.flags(), delimiter.pattern(), source.delimiterChars(),
+        source.minFrequency(), source.maxVocabulary()
+      );
+    }
+
+    static TokenizerConfig read(ByteBuffer buffer, int version) {
+      int options = buffer.getInt();
+      int patternFlags = buffer.getInt();
+      String pattern = readString(buffer);
+      String chars = version >= 2 ? readString(buffer) : null;
+      int minFrequency = version >= 4 ? buffer.getInt() : 1;
+      int maxVocabulary = version >= 4 ? buffer.getInt() : Integer.MAX_VALUE;
+      return (options & PRESENT) == 0
+        ? ABSENT
+        : new TokenizerConfig(options, patternFlags, pattern, chars, minFrequency, maxVocabulary);
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      out.writeInt(options);
+      out.writeInt(patternFlags);
+      writeString(out, pattern);
+      writeString(out, chars);
+      out.writeInt(minFrequency);
+      out.writeInt(maxVocabulary);
+    }
+
+    /**
+     * Creates a fresh tokenizer with the recorded settings. The default delimiters are kept as the shared
+     * {@link Tokenizer#DELIMITER} instance, which the tokenizer scans without the regex engine.
+     */
+    Tokenizer build() {
+      TokenizerBuilder builder = new TokenizerBuilder()
+        .minFrequency(minFrequency)
+        .maxVocabulary(maxVocabulary);
+      if ((options & LOWERCASE) != 0) builder.lowercaseTokens();
+      if ((options & SIMPLE) != 0) builder.simpleTokens();
+      if ((options & UNKNOWN) != 0) builder.unknownToken();
+      if ((options & NEAREST) != 0) builder.findNearest();
+      if ((options & UNSEEN) != 0) builder.includeUnseenTokens();
+      if ((options & FIT) != 0) builder.fitUponTokenization();
+
+      if (chars != null)
+        builder.withDelimiters(chars);
+      else if (!isDefaultDelimiter())
+        builder.withDelimiter(Pattern.compile(pattern, patternFlags));
+      return builder.build(TokenizerImpl.class);
+    }
+
+    /**
+     * Compares the settings that decide how text is split into vocabulary tokens. Registration settings and
+     * limits may differ, a checkpoint of a frozen model records registrations as disabled.
+     *
+     * @return The name of the first differing setting, or null if the tokenizer matches or nothing was recorded.
+     */
+    String mismatch(Tokenizer tokenizer) {
+      if (this == ABSENT || !(tokenizer instanceof AbstractTokenizer)) return null;
+      TokenizerConfig other = of(tokenizer);
+      if (((options ^ other.options) & LOWERCASE) != 0) return "lowercase tokens";
+      if (((options ^ other.options) & SIMPLE) != 0) return "simple tokens";
+      if (((options ^ other.options) & UNKNOWN) != 0) return "unknown token";
+      if (((options ^ other.options) & NEAREST) != 0) return "find nearest";
+      if (!Objects.equals(chars, other.chars) || !pattern.equals(other.pattern) || patternFlags != other.patternFlags)
+        return "delimiter";
+      return null;
+    }
+
+    private boolean isDefaultDelimiter() {
+      return pattern.equals(Tokenizer.DELIMITER.pattern()) && patternFlags == Tokenizer.DELIMITER.flags();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+      if (value == null) {
+        out.writeInt(-1);
+        return;
+      }
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+      int length = buffer.getInt();
+      if (length < 0) return null;
+      byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Reads from a byte buffer without copying it onto the heap first.
+   */
+  private static final class BufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    BufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(@Nonnull byte[] bytes, int offset, int length) {
+      if (length == 0) return 0;
+      if (!buffer.hasRemaining()) return -1;
+      length = Math.min(length, buffer.remaining());
+      buffer.get(bytes, offset, length);
+      return length;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
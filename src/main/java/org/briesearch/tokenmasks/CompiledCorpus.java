@@ -0,0 +1,392 @@
+package org.briesearch.tokenmasks;
+
+import com.google.common.base.Preconditions;
+import org.briesearch.tokenmasks.tokenizer.Tokenizer;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * CompiledCorpus is a corpus of sentences tokenized once into binary shards of token ids, so training runs and
+ * repeated experiments read ids instead of tokenizing text again. Masking happens on the ids, freshly drawn on every
+ * pass, see {@link #masked(int, long, int, int)}. Shards are memory-mapped and decoded lazily. All values are big-endian:
+ * <pre>
+ *   int    magic ("TMCS"), int version
+ *   long   vocabulary fingerprint, int vocabulary size
+ *   int    sentences, then per sentence: varint token count, then per token: varint id + 1 (0 for unknown tokens)
+ * </pre>
+ * The fingerprint identifies the vocabulary the ids refer to, see {@link #fingerprint(Tokenizer, int)}. Tokenizers
+ * that registered more tokens since still match, as the ids of earlier tokens never change.
+ *
+ * @author Brissach
+ * @since 17.10.2026 23:20
+ * © token-masks - All Rights Reserved
+ */
+public final class CompiledCorpus {
+
+  static final int MAGIC = 0x544D4353;
+  static final int VERSION = 1;
+
+  /* Sentences per shard compiled through Model */
+  static final int DEFAULT_SHARD = 1 << 16;
+
+  private final List<Path> shards;
+  private final long fingerprint;
+  private final int vocabulary;
+  private final long sentences;
+
+  private CompiledCorpus(List<Path> shards, long fingerprint, int vocabulary, long sentences) {
+    this.shards = shards;
+    this.fingerprint = fingerprint;
+    this.vocabulary = vocabulary;
+    this.sentences = sentences;
+  }
+
+  /**
+   * Tokenizes sentences into shards in a directory. The shards are written into a staging directory next to the
+   * target, which only takes the place of the target once all shards are complete, so a failed compilation leaves
+   * the shards of an earlier one intact.
+   *
+   * @param tokenizer The fitted tokenizer. It must not register tokens while compiling, which is checked before
+   *                  every shard is written.
+   * @param sentences The unmasked sentences.
+   * @param directory The directory of the shards, created if missing. Shards of an earlier compilation are replaced.
+   * @param shardSize The number of sentences per shard.
+   * @return The compiled corpus.
+   * @throws IOException If a shard cannot be written, or the directory holds files other than shards.
+   * @throws IllegalStateException If the tokenizer registered tokens while compiling.
+   */
+  @Nonnull
+  public static CompiledCorpus compile(@Nonnull Tokenizer tokenizer, @Nonnull Iterable<String> sentences,
+                                       @Nonnull Path directory, int shardSize) throws IOException {
+    Preconditions.checkArgument(shardSize > 0, "shardSize must be positive, got %s", shardSize);
+    Path target = directory.toAbsolutePath();
+    if (Files.exists(target))
+      checkShardsOnly(target);
+    Files.createDirectories(target.getParent());
+    Path staging = Files.createTempDirectory(target.getParent(), target.getFileName() + ".staging-");
+
+    int vocabulary = tokenizer.size();
+    long fingerprint = fingerprint(tokenizer, vocabulary);
+
+    boolean complete = false;
+    try {
+      int[] ids = new int[64];
+      int[] lengths = new int[shardSize];
+      int[][] rows = new int[shardSize][];
+      int count = 0;
+      int shard = 0;
+      for (String sentence : sentences) {
+        int length = tokenizer.tokenizeIds(sentence, ids, 0);
+        if (length > ids.length) {
+          ids = new int[Integer.highestOneBit(length) << 1];
+          tokenizer.tokenizeIds(sentence, ids, 0);
+        }
+        if (rows[count] == null || rows[count].length < length)
+          rows[count] = new int[ids.length];
+        System.arraycopy(ids, 0, rows[count], 0, length);
+        lengths[count++] = length;
+
+        if (count == shardSize) {
+          checkVocabulary(tokenizer, vocabulary);
+          write(staging.resolve(name(shard++)), fingerprint, vocabulary, rows, lengths, count);
+          count = 0;
+        }
+      }
+      if (count > 0) {
+        checkVocabulary(tokenizer, vocabulary);
+        write(staging.resolve(name(shard)), fingerprint, vocabulary, rows, lengths, count);
+      }
+
+      swap(staging, target);
+      complete = true;
+    } finally {
+      if (!complete)
+        delete(staging);
+    }
+    return open(directory);
+  }
+
+  /**
+   * Opens the shards of a compiled corpus.
+   *
+   * @param directory The directory of the shards.
+   * @return The corpus.
+   * @throws IOException If a shard is invalid or the shards were compiled against different vocabularies.
+   */
+  @Nonnull
+  public static CompiledCorpus open(@Nonnull Path directory) throws IOException {
+    List<Path> shards = shards(directory);
+    long fingerprint = 0L;
+    int vocabulary = 0;
+    long sentences = 0;
+    for (int i = 0; i < shards.size(); i++) {
+      MappedByteBuffer header = map(shards.get(i));
+      if (header.remaining() < 24 || header.getInt() != MAGIC)
+        throw new IOException(shards.get(i) + " is not a token-masks corpus shard");
+      int version = header.getInt();
+      if (version != VERSION)
+        throw new IOException("Unsupported corpus shard version " + version + ", expected " + VERSION);
+
+      long shardFingerprint = header.getLong();
+      int shardVocabulary = header.getInt();
+      if (i > 0 && (shardFingerprint != fingerprint || shardVocabulary != vocabulary))
+        throw new IOException("Shard " + shards.get(i) + " was compiled against a different vocabulary");
+      fingerprint = shardFingerprint;
+      vocabulary = shardVocabulary;
+      sentences += header.getInt();
+    }
+    return new CompiledCorpus(Collections.unmodifiableList(shards), fingerprint, vocabulary, sentences);
+  }
+
+  /**
+   * Computes the fingerprint of the first tokens of a vocabulary, a 64-bit FNV-1a hash over their UTF-8 bytes in id
+   * order.
+   *
+   * @param tokenizer The tokenizer holding the vocabulary.
+   * @param size The number of tokens covered.
+   * @return The fingerprint.
+   */
+  public static long fingerprint(@Nonnull Tokenizer tokenizer, int size) {
+    long hash = 0xcbf29ce484222325L;
+    for (int id = 0; id < size; id++) {
+      for (byte b : tokenizer.wordOf(id).getBytes(StandardCharsets.UTF_8))
+        hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+      hash = (hash ^ 0xff) * 0x100000001b3L; // separator, never part of UTF-8
+    }
+    return hash;
+  }
+
+  /**
+   * @param tokenizer The tokenizer to train with.
+   * @return Whether the ids of the corpus refer to the same tokens in the tokenizer.
+   */
+  public boolean matches(@Nonnull Tokenizer tokenizer) {
+    return tokenizer.size() >= vocabulary && fingerprint(tokenizer, vocabulary) == fingerprint;
+  }
+
+  public long fingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * @return The number of tokens of the vocabulary the corpus was compiled against.
+   */
+  public int vocabulary() {
+    return vocabulary;
+  }
+
+  public long sentences() {
+    return sentences;
+  }
+
+  /**
+   * Creates the masked samples of one pass over the corpus, masked anew for every pass. Pass k masks with generators
+   * derived from the seed and k only, so every read of the source yields the same samples and the samples of every
+   * epoch are reproducible across runs, see
+   * {@link Trainer#fit(java.util.function.IntFunction, Trainer.BatchEncoder, double, double)}. Sentences without
+   * tokens are skipped.
+   *
+   * @param maskId The token id of the mask token.
+   * @param seed The seed of the masking.
+   * @param n_masks The largest number of masks per sentence, each sentence draws between 1 and n_masks.
+   * @param pass The index of the pass, usually the training epoch.
+   * @return The source of the pass.
+   */
+  @Nonnull
+  public Iterable<TokenizedSample> masked(int maskId, long seed, int n_masks, int pass) {
+    Preconditions.checkArgument(n_masks > 0, "n_masks must be positive, got %s", n_masks);
+    return () -> {
+      SplittableRandom random = new SplittableRandom(seed ^ pass * 0x9E3779B97F4A7C15L);
+      SentenceMasker masker = new SentenceMasker(random.nextLong(), Model.MASK);
+      ShardCursor cursor = new ShardCursor();
+      return new Iterator<TokenizedSample>() {
+        private int[] next = advance();
+
+        private int[] advance() {
+          while (cursor.hasNext()) {
+            int[] ids = cursor.next();
+            if (ids.length > 0) return ids;
+          }
+          return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+          return next != null;
+        }
+
+        @Override
+        public TokenizedSample next() {
+          if (next == null) throw new NoSuchElementException();
+          int[] tokens = next;
+          next = advance();
+          int[] targets = masker.mask(tokens, n_masks == 1 ? 1 : 1 + random.nextInt(n_masks), maskId);
+          return new TokenizedSample(tokens, targets);
+        }
+      };
+    };
+  }
+
+  private static void checkVocabulary(Tokenizer tokenizer, int vocabulary) {
+    Preconditions.checkState(
+      tokenizer.size() == vocabulary,
+      "The tokenizer registered %s tokens while compiling, fit it on the corpus first", tokenizer.size() - vocabulary
+    );
+  }
+
+  private static void write(Path file, long fingerprint, int vocabulary, int[][] rows, int[] lengths, int count)
+    throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(fingerprint);
+      out.writeInt(vocabulary);
+      out.writeInt(count);
+      for (int i = 0; i < count; i++) {
+        writeVarint(out, lengths[i]);
+        for (int t = 0; t < lengths[i]; t++)
+          writeVarint(out, rows[i][t] + 1);
+      }
+    }
+  }
+
+  /**
+   * Moves a complete staging directory into the place of the target. An existing target is moved aside first and
+   * deleted once the staging directory took its place.
+   */
+  private static void swap(Path staging, Path target) throws IOException {
+    if (!Files.exists(target)) {
+      Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+      return;
+    }
+
+    Path aside = Files.createTempDirectory(target.getParent(), target.getFileName() + ".old-");
+    Files.move(target, aside.resolve(target.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+    try {
+      Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      Files.move(aside.resolve(target.getFileName()), target, StandardCopyOption.ATOMIC_MOVE);
+      Files.delete(aside);
+      throw e;
+    }
+    delete(aside);
+  }
+
+  /**
+   * Rejects replacing a directory that holds anything but shards, as it is deleted as a whole.
+   */
+  private static void checkShardsOnly(Path directory) throws IOException {
+    if (!Files.isDirectory(directory))
+      throw new IOException(directory + " is not a directory");
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      for (Path path : stream) {
+        String name = path.getFileName().toString();
+        if (!Files.isRegularFile(path) || !name.startsWith("shard-") || !name.endsWith(".bin"))
+          throw new IOException(directory + " holds " + name + ", compile into a directory of shards only");
+      }
+    }
+  }
+
+  private static void delete(Path directory) throws IOException {
+    List<Path> paths;
+    try (Stream<Path> stream = Files.walk(directory)) {
+      paths = stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+    }
+    for (Path path : paths)
+      Files.deleteIfExists(path);
+  }
+
+  private static void writeVarint(DataOutputStream out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  private static int readVarint(MappedByteBuffer buffer) {
+    int value = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = buffer.get();
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) return value;
+    }
+  }
+
+  private static String name(int shard) {
+    return String.format("shard-%05d.bin", shard);
+  }
+
+  private static List<Path> shards(Path directory) throws IOException {
+    List<Path> shards = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "shard-*.bin")) {
+      stream.forEach(shards::add);
+    }
+    Collections.sort(shards);
+    return shards;
+  }
+
+  private static MappedByteBuffer map(Path shard) throws IOException {
+    try (FileChannel channel = FileChannel.open(shard, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE)
+        throw new IOException("Corpus shard " + shard + " exceeds 2 GB");
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  /**
+   * Decodes the sentences of all shards in order, mapping one shard at a time.
+   */
+  private final class ShardCursor implements Iterator<int[]> {
+
+    private int shard;
+    private MappedByteBuffer buffer;
+    private int remaining;
+
+    @Override
+    public boolean hasNext() {
+      while (remaining == 0) {
+        if (shard == shards.size()) return false;
+        try {
+          buffer = map(shards.get(shard++));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        buffer.position(20);
+        remaining = buffer.getInt();
+      }
+      return true;
+    }
+
+    @Override
+    public int[] next() {
+      if (!hasNext()) throw new NoSuchElementException();
+      remaining--;
+      int[] ids = new int[readVarint(buffer)];
+      for (int t = 0; t < ids.length; t++)
+        ids[t] = readVarint(buffer) - 1;
+      return ids;
+    }
+  }
+}
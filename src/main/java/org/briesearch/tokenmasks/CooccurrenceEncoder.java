@@ -0,0 +1,239 @@
+package org.briesearch.tokenmasks;
+
+import org.briesearch.tokenmasks.tokenizer.Tokenizer;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * CooccurrenceEncoder is an implementation of the Encoder interface that projects every token onto a fixed
+ * co-occurrence vector of d_model dimensions and adds a sinusoidal positional encoding per position. The encoded width
+ * is n_vocab * d_model and therefore independent of the vocabulary size.
+ * <p>
+ * The vectors are built by random indexing: every token gets a seeded random index vector, and
+ * {@link #fit(Tokenizer, Iterable)} folds the index vectors of co-occurring tokens into it once, so tokens appearing
+ * in similar contexts end up close to each other. The table is fixed input to the network, no training step
+ * updates it.
+ *
+ * @author Brissach
+ * @since 17.10.2026 11:26
+ * © token-masks - All Rights Reserved
+ */
+public class CooccurrenceEncoder implements Encoder {
+
+  private final int d_model;
+  private final int window;
+  private final long seed;
+
+  private volatile double[][] embeddings = new double[0][];
+  private volatile double[][] positions = new double[0][];
+
+  public CooccurrenceEncoder(int d_model, long seed) {
+    this(d_model, 2, seed);
+  }
+
+  /**
+   * @param d_model The dimension of every token vector.
+   * @param window The number of neighbouring tokens on each side considered as context when fitting.
+   * @param seed The seed of the random index vectors.
+   */
+  public CooccurrenceEncoder(int d_model, int window, long seed) {
+    if (d_model <= 0)
+      throw new IllegalArgumentException("d_model must be positive, got " + d_model);
+    this.d_model = d_model;
+    this.window = window;
+    this.seed = seed;
+  }
+
+  @Override
+  public double[] encode(Tokenizer tokenizer, String text, int n_vocab) {
+    return encode(tokenizer, tokenizer.tokenize(text), n_vocab);
+  }
+
+  /**
+   * Encodes already tokenized text, see {@link #encode(Tokenizer, String, int)}.
+   *
+   * @param tokenizer The tokenizer used to map tokens to indices.
+   * @param tokens The tokens of the input text.
+   * @param n_vocab The maximum number of positions to encode.
+   * @return The encoded vector of n_vocab * d_model values.
+   */
+  public double[] encode(Tokenizer tokenizer, List<String> tokens, int n_vocab) {
+    int length = Math.min(tokens.size(), n_vocab);
+    double[] vector = new double[n_vocab * d_model];
+    double[][] table = positions(n_vocab);
+
+    for (int i = 0; i < length; i++) {
+      int offset = i * d_model;
+      System.arraycopy(table[i], 0, vector, offset, d_model);
+
+      int tokenIndex = tokenizer.indexOfOrUnknown(tokens.get(i));
+      if (tokenIndex == -1) continue;
+
+      double[] embedding = embedding(tokenIndex);
+      for (int d = 0; d < d_model; d++)
+        vector[offset + d] += embedding[d];
+    }
+    return vector;
+  }
+
+  /**
+   * Encodes token ids into a row, see {@link Encoder#encode(Tokenizer, int[], int, int, int, EncodedRow)}. The
+   * embedding table is not bounded by n_tokens, so tokens registered after fitting keep their own embedding as in
+   * {@link #encode(Tokenizer, List, int)}.
+   */
+  @Override
+  public void encode(Tokenizer tokenizer, int[] ids, int length, int n_tokens, int n_vocab, EncodedRow row) {
+    row.clear();
+    int positions = Math.min(Math.min(length, ids.length), n_vocab);
+    double[][] table = positions(n_vocab);
+
+    for (int i = 0; i < positions; i++) {
+      int offset = i * d_model;
+      row.set(offset, table[i], 0, d_model);
+
+      int tokenIndex = ids[i] != -1 ? ids[i] : tokenizer.unknownIndex();
+      if (tokenIndex == -1) continue;
+
+      double[] embedding = embedding(tokenIndex);
+      for (int d = 0; d < d_model; d++)
+        row.add(offset + d, embedding[d]);
+    }
+  }
+
+  @Override
+  public int dimension(int n_tokens, int n_vocab) {
+    return n_vocab * d_model;
+  }
+
+  /**
+   * Builds the co-occurrence table from the given sentences. Every vector becomes its token's index vector plus the
+   * averaged index vectors of the tokens within the context window, normalized to unit length.
+   *
+   * @param tokenizer The tokenizer used to tokenize the sentences and map tokens to indices.
+   * @param sentences The sentences to count co-occurrences in.
+   */
+  public synchronized void fit(Tokenizer tokenizer, Iterable<String> sentences) {
+    int n_tokens = tokenizer.size();
+    double[][] context = new double[n_tokens][d_model];
+    int[] counts = new int[n_tokens];
+
+    for (String sentence : sentences) {
+      List<String> tokens = tokenizer.tokenize(sentence);
+      int[] ids = new int[tokens.size()];
+      for (int i = 0; i < ids.length; i++)
+        ids[i] = tokenizer.indexOf(tokens.get(i));
+
+      for (int i = 0; i < ids.length; i++) {
+        if (ids[i] < 0 || ids[i] >= n_tokens) continue;
+        int from = Math.max(0, i - window), to = Math.min(ids.length, i + window + 1);
+        for (int j = from; j < to; j++) {
+          if (j == i || ids[j] < 0) continue;
+          double[] neighbour = indexVector(ids[j]);
+          for (int d = 0; d < d_model; d++)
+            context[ids[i]][d] += neighbour[d];
+          counts[ids[i]]++;
+        }
+      }
+    }
+
+    double[][] built = new double[n_tokens][];
+    for (int id = 0; id < n_tokens; id++) {
+      double[] embedding = indexVector(id);
+      if (counts[id] > 0)
+        for (int d = 0; d < d_model; d++)
+          embedding[d] += context[id][d] / counts[id];
+      normalize(embedding);
+      built[id] = embedding;
+    }
+    embeddings = built;
+  }
+
+  public int dModel() {
+    return d_model;
+  }
+
+  /**
+   * @return The current embedding table, one row per token index. Rows must not be modified.
+   */
+  double[][] table() {
+    return embeddings;
+  }
+
+  /**
+   * Replaces the embedding table with rows read from a buffer, e.g. a memory-mapped checkpoint section.
+   *
+   * @param buffer The buffer positioned at the first row.
+   * @param rows The number of rows of d_model values to read.
+   */
+  synchronized void restore(DoubleBuffer buffer, int rows) {
+    double[][] table = new double[rows][d_model];
+    for (double[] row : table)
+      buffer.get(row);
+    embeddings = table;
+  }
+
+  /**
+   * Retrieves the embedding of a token, creating its initial index vector if the token was registered after fitting.
+   */
+  private double[] embedding(int tokenIndex) {
+    double[][] table = embeddings;
+    if (tokenIndex < table.length) return table[tokenIndex];
+
+    synchronized (this) {
+      if (tokenIndex >= embeddings.length) {
+        int from = embeddings.length;
+        double[][] grown = Arrays.copyOf(embeddings, tokenIndex + 1);
+        for (int id = from; id < grown.length; id++) {
+          grown[id] = indexVector(id);
+          normalize(grown[id]);
+        }
+        embeddings = grown;
+      }
+      return embeddings[tokenIndex];
+    }
+  }
+
+  /**
+   * Creates the random index vector of a token. Vectors are derived from the seed and the token index only,
+   * so they do not depend on the order in which the table grows.
+   */
+  private double[] indexVector(int tokenIndex) {
+    SplittableRandom random = new SplittableRandom(seed ^ (tokenIndex * 0x9E3779B97F4A7C15L));
+    double scale = 1.0 / Math.sqrt(d_model);
+    double[] vector = new double[d_model];
+    for (int d = 0; d < d_model; d++)
+      vector[d] = random.nextBoolean() ? scale : -scale;
+    return vector;
+  }
+
+  /**
+   * Sinusoidal positional encoding, PE(pos, 2i) = sin(pos / 10000^(2i / d_model)) and
+   * PE(pos, 2i + 1) = cos(pos / 10000^(2i / d_model)), cached per n_vocab.
+   */
+  private double[][] positions(int n_vocab) {
+    double[][] table = positions;
+    if (table.length == n_vocab) return table;
+
+    table = new double[n_vocab][d_model];
+    for (int pos = 0; pos < n_vocab; pos++) {
+      for (int d = 0; d < d_model; d++) {
+        double angle = pos / Math.pow(10000, (double) (d - (d & 1)) / d_model);
+        table[pos][d] = (d & 1) == 0 ? Math.sin(angle) : Math.cos(angle);
+      }
+    }
+    positions = table;
+    return table;
+  }
+
+  private static void normalize(double[] vector) {
+    double norm = 0.0;
+    for (double v : vector) norm += v * v;
+    norm = Math.sqrt(norm);
+    if (norm == 0.0) return;
+    for (int d = 0; d < vector.length; d++)
+      vector[d] /= norm;
+  }
+}
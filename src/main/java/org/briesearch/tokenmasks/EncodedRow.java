@@ -0,0 +1,168 @@
+package org.briesearch.tokenmasks;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nonnull;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+/**
+ * EncodedRow is the reusable destination of the token id based entry point of {@link Encoder}: a window of a double
+ * array or {@link DoubleBuffer} starting at an offset. The row remembers which slots were written, so the next encoding
+ * only clears those instead of the whole row. Once the slot log reached its largest size, encoding into the row
+ * allocates nothing.
+ * <p>
+ * Rows are not thread-safe, every thread encodes into its own rows.
+ *
+ * @author Brissach
+ * @since 17.10.2026 22:31
+ * © token-masks - All Rights Reserved
+ */
+public final class EncodedRow {
+
+  private final DoubleBuffer buffer;
+  private final double[] array;
+  private final int offset;
+  private final int width;
+  private int[] slots = new int[16];
+  private int size;
+  /* the slots [0, covered) are cleared as a whole, slots within them are not logged */
+  private int covered;
+
+  private EncodedRow(DoubleBuffer buffer, double[] array, int offset, int width) {
+    this.buffer = buffer;
+    this.array = array;
+    this.offset = offset;
+    this.width = width;
+  }
+
+  /**
+   * Creates a row spanning a whole array.
+   *
+   * @param array The array receiving the encoded values.
+   * @return The row.
+   */
+  @Nonnull
+  public static EncodedRow of(@Nonnull double[] array) {
+    return of(array, 0, array.length);
+  }
+
+  /**
+   * @param array The array receiving the encoded values.
+   * @param offset The index of the first slot of the row within the array.
+   * @param width The number of slots of the row.
+   * @return The row.
+   */
+  @Nonnull
+  public static EncodedRow of(@Nonnull double[] array, int offset, int width) {
+    Preconditions.checkPositionIndexes(offset, offset + width, array.length);
+    return new EncodedRow(null, array, offset, width);
+  }
+
+  /**
+   * Creates a row over a buffer, e.g. a direct or memory-mapped one. Slots are accessed absolutely, the position
+   * of the buffer is left untouched.
+   *
+   * @param buffer The buffer receiving the encoded values.
+   * @param offset The index of the first slot of the row within the buffer.
+   * @param width The number of slots of the row.
+   * @return The row.
+   */
+  @Nonnull
+  public static EncodedRow of(@Nonnull DoubleBuffer buffer, int offset, int width) {
+    Preconditions.checkPositionIndexes(offset, offset + width, buffer.limit());
+    return new EncodedRow(buffer, null, offset, width);
+  }
+
+  public int width() {
+    return width;
+  }
+
+  /**
+   * @return Whether the row is a window of the given array.
+   */
+  boolean wraps(double[] array) {
+    return this.array == array;
+  }
+
+  /**
+   * Sets a slot.
+   *
+   * @param slot The index of the slot within the row.
+   * @param value The value.
+   */
+  public void set(int slot, double value) {
+    Preconditions.checkElementIndex(slot, width);
+    log(slot);
+    write(slot, value);
+  }
+
+  /**
+   * Adds to a slot.
+   *
+   * @param slot The index of the slot within the row.
+   * @param value The value added.
+   */
+  public void add(int slot, double value) {
+    Preconditions.checkElementIndex(slot, width);
+    log(slot);
+    write(slot, read(slot) + value);
+  }
+
+  /**
+   * Copies values into consecutive slots. Instead of logging them, the next clear zeroes all slots up to the end of
+   * the furthest range written, which suits dense encodings written front to back.
+   *
+   * @param slot The index of the first slot within the row.
+   * @param values The values.
+   * @param from The index of the first value.
+   * @param length The number of values.
+   */
+  public void set(int slot, @Nonnull double[] values, int from, int length) {
+    Preconditions.checkPositionIndexes(slot, slot + length, width);
+    covered = Math.max(covered, slot + length);
+    if (array != null) {
+      System.arraycopy(values, from, array, offset + slot, length);
+      return;
+    }
+    for (int i = 0; i < length; i++)
+      buffer.put(offset + slot + i, values[from + i]);
+  }
+
+  /**
+   * Zeroes every slot written since the last clear.
+   */
+  public void clear() {
+    for (int i = 0; i < size; i++)
+      write(slots[i], 0.0);
+    size = 0;
+    clearRange(0, covered);
+    covered = 0;
+  }
+
+  private void clearRange(int from, int to) {
+    if (from >= to) return;
+    if (array != null) {
+      Arrays.fill(array, offset + from, offset + to, 0.0);
+      return;
+    }
+    for (int slot = from; slot < to; slot++)
+      buffer.put(offset + slot, 0.0);
+  }
+
+  private void log(int slot) {
+    if (slot < covered) return;
+    if (size == slots.length)
+      slots = Arrays.copyOf(slots, size * 2);
+    slots[size++] = slot;
+  }
+
+  private double read(int slot) {
+    return array != null ? array[offset + slot] : buffer.get(offset + slot);
+  }
+
+  private void write(int slot, double value) {
+    if (array != null) array[offset + slot] = value;
+    else buffer.put(offset + slot, value);
+  }
+}
@@ -21,4 +21,50 @@ public interface Encoder {
     String text,
     int n_vocab
   );
+
+  /**
+   * Encodes already tokenized text into a reusable row, see {@link EncodedRow}. The slots the previous encoding set
+   * in the row are cleared first, so the row is never zeroed as a whole and, once the row reached its steady size,
+   * nothing is allocated.
+   * <p>
+   * By default, the ids are decoded and encoded through {@link #encode(Tokenizer, String, int)} with a tokenizer that
+   * replays the decoded tokens within n_tokens slots, and the non-zero values are copied into the row. Encoders
+   * override this to encode ids without the intermediate vector.
+   *
+   * @param tokenizer The tokenizer the ids were produced by, resolving unknown tokens.
+   * @param ids The token indices as written by {@link Tokenizer#tokenizeIds(String, int[], int)}, -1 for unknown tokens.
+   * @param length The number of tokens of the text. Ids are read up to min(length, ids.length), and up to n_vocab by
+   *               encoders of positions.
+   * @param n_tokens The number of token slots of the layout, at least the vocabulary size. Tokens with an index
+   *                 beyond the slots are encoded like unknown tokens.
+   * @param n_vocab The maximum number of tokens for which the encoding will be generated.
+   * @param row The row of {@link #dimension(int, int)} slots receiving the encoding.
+   */
+  default void encode(
+    Tokenizer tokenizer,
+    int[] ids,
+    int length,
+    int n_tokens,
+    int n_vocab,
+    EncodedRow row
+  ) {
+    ReplayTokenizer replay = new ReplayTokenizer(tokenizer, ids, Math.min(length, ids.length), n_tokens);
+    double[] vector = encode(replay, replay.text(), n_vocab);
+    row.clear();
+    int width = Math.min(vector.length, row.width());
+    for (int i = 0; i < width; i++)
+      if (vector[i] != 0.0)
+        row.set(i, vector[i]);
+  }
+
+  /**
+   * Retrieves the length of the vectors produced by {@link #encode(Tokenizer, String, int)}.
+   *
+   * @param n_tokens The number of tokens in the vocabulary.
+   * @param n_vocab The maximum number of tokens for which the encoding will be generated.
+   * @return The size of an encoded vector, by default n_vocab * (n_tokens + 1), the positional one-hot layout.
+   */
+  default int dimension(int n_tokens, int n_vocab) {
+    return n_vocab * (n_tokens + 1);
+  }
 }
@@ -0,0 +1,178 @@
+package org.briesearch.tokenmasks;
+
+import org.briesearch.tokenmasks.tokenizer.Tokenizer;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Ingestion fits vocabularies and generates masked samples from large corpora across cores.
+ * <p>
+ * Work is split into fixed-size shards in corpus order, never by the number of threads, and shard results are merged
+ * in shard order. The vocabulary ids and the generated samples therefore only depend on the corpus and the seed,
+ * not on the degree of parallelism.
+ *
+ * @author Brissach
+ * @since 17.10.2026 20:48
+ * © token-masks - All Rights Reserved
+ */
+public final class Ingestion {
+
+  /* samples or sentences per shard */
+  static final int SHARD = 4096;
+
+  private Ingestion() {
+  }
+
+  /**
+   * Fits the tokenizer with the counted tokens of the samples, see {@link #count(Tokenizer, SampleSource, ExecutorService, int)}
+   * and {@link Tokenizer#fit(Map)}. Tokens are registered by descending frequency, ties in the order of their first
+   * occurrence in the corpus, subject to the frequency and size limits of the tokenizer.
+   *
+   * @param tokenizer The tokenizer.
+   * @param samples The source of the samples.
+   * @param executor The executor, or null to run on the calling thread.
+   * @param threads The number of threads the work may be spread across.
+   * @return The tokenizer.
+   */
+  @Nonnull
+  public static Tokenizer fit(@Nonnull Tokenizer tokenizer, @Nonnull SampleSource samples,
+                              ExecutorService executor, int threads) {
+    Map<String, Long> counts = count(tokenizer, samples, executor, threads);
+    tokenizer.fit(counts);
+    return tokenizer;
+  }
+
+  /**
+   * Counts the tokens of the masked sentences and targets of all samples in a single pass over the source.
+   * Shards are tokenized in parallel against a frozen snapshot of the tokenizer, so tokens found in the corpus do not
+   * change how later sentences are split. Tokenizers that cannot be frozen are counted on the calling thread, fitting
+   * the tokens as they are found.
+   * <p>
+   * At most threads * 2 shards are in flight, so memory is bounded by the shard size rather than the corpus size.
+   *
+   * @param tokenizer The tokenizer.
+   * @param samples The source of the samples.
+   * @param executor The executor, or null to run on the calling thread.
+   * @param threads The number of threads the work may be spread across.
+   * @return The occurrences per token, in the order of the first occurrence of each token.
+   */
+  @Nonnull
+  public static Map<String, Long> count(@Nonnull Tokenizer tokenizer, @Nonnull SampleSource samples,
+                                        ExecutorService executor, int threads) {
+    Tokenizer snapshot;
+    try {
+      snapshot = tokenizer.freeze();
+    } catch (UnsupportedOperationException e) {
+      return countSequential(tokenizer, samples);
+    }
+
+    Map<String, long[]> merged = new LinkedHashMap<>();
+    Deque<Future<Map<String, long[]>>> pending = new ArrayDeque<>();
+    boolean parallel = executor != null && threads > 1;
+    try (SampleSource.Cursor cursor = samples.iterator()) {
+      while (cursor.hasNext()) {
+        Sample[] shard = new Sample[SHARD];
+        int size = 0;
+        while (size < SHARD && cursor.hasNext())
+          shard[size++] = cursor.next();
+        Sample[] filled = size == SHARD ? shard : Arrays.copyOf(shard, size);
+
+        if (!parallel) {
+          merge(merged, count(snapshot, filled));
+          continue;
+        }
+
+        pending.add(executor.submit(() -> count(snapshot, filled)));
+        if (pending.size() >= threads * 2)
+          merge(merged, Parallel.await(pending.poll()));
+      }
+      while (!pending.isEmpty())
+        merge(merged, Parallel.await(pending.poll()));
+    } finally {
+      pending.forEach(future -> future.cancel(true));
+    }
+
+    Map<String, Long> counts = new LinkedHashMap<>(merged.size() * 2);
+    merged.forEach((token, count) -> counts.put(token, count[0]));
+    return counts;
+  }
+
+  private static Map<String, long[]> count(Tokenizer tokenizer, Sample[] shard) {
+    Map<String, long[]> counts = new LinkedHashMap<>();
+    for (Sample sample : shard) {
+      for (String token : tokenizer.tokenize(sample.masked()))
+        counts.computeIfAbsent(token, t -> new long[1])[0]++;
+      for (String token : tokenizer.tokenize(sample.target()))
+        counts.computeIfAbsent(token, t -> new long[1])[0]++;
+    }
+    return counts;
+  }
+
+  private static void merge(Map<String, long[]> merged, Map<String, long[]> shard) {
+    shard.forEach((token, count) -> {
+      long[] total = merged.get(token);
+      if (total == null)
+        merged.put(token, count);
+      else
+        total[0] += count[0];
+    });
+  }
+
+  private static Map<String, Long> countSequential(Tokenizer tokenizer, SampleSource samples) {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    for (Sample sample : samples) {
+      List<String> masked = tokenizer.tokenize(sample.masked());
+      tokenizer.fit(masked);
+      List<String> target = tokenizer.tokenize(sample.target());
+      tokenizer.fit(target);
+      masked.forEach(token -> counts.merge(token, 1L, Long::sum));
+      target.forEach(token -> counts.merge(token, 1L, Long::sum));
+    }
+    return counts;
+  }
+
+  /**
+   * Masks every sentence, see {@link SentenceMasker#mask(String, int)}. Every shard of sentences masks with its own
+   * generator, split off a generator seeded with the given seed in shard order. Duplicate sentences yield one sample
+   * each.
+   *
+   * @param sentences The sentences.
+   * @param mask The mask token.
+   * @param seed The seed of the masking.
+   * @param n_masks The largest number of masks per sentence, each sentence draws between 1 and n_masks.
+   * @param executor The executor, or null to run on the calling thread.
+   * @param threads The number of threads the work may be spread across.
+   * @return The samples in the order of the sentences.
+   */
+  @Nonnull
+  public static List<Sample> mask(@Nonnull List<String> sentences, @Nonnull String mask, long seed, int n_masks,
+                                  ExecutorService executor, int threads) {
+    int shards = (sentences.size() + SHARD - 1) / SHARD;
+    SplittableRandom root = new SplittableRandom(seed);
+    SplittableRandom[] randoms = new SplittableRandom[shards];
+    for (int shard = 0; shard < shards; shard++)
+      randoms[shard] = root.split();
+
+    Sample[] samples = new Sample[sentences.size()];
+    Parallel.forEach(executor, threads, shards, shard -> {
+      SplittableRandom random = randoms[shard];
+      SentenceMasker masker = new SentenceMasker(random.nextLong(), mask);
+      int to = Math.min(samples.length, (shard + 1) * SHARD);
+      for (int i = shard * SHARD; i < to; i++) {
+        String[] masked = masker.mask(sentences.get(i), n_masks == 1 ? 1 : 1 + random.nextInt(n_masks));
+        samples[i] = new Sample(masked[0], masked[1]);
+      }
+    });
+    return Collections.unmodifiableList(Arrays.asList(samples));
+  }
+}
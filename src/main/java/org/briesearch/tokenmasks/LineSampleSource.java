@@ -0,0 +1,147 @@
+package org.briesearch.tokenmasks;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * LineSampleSource reads samples lazily from a UTF-8 file with one tab separated "masked\ttarget" pair per line.
+ * The file is memory-mapped in windows of 64 MB, so only the pages of the current window need to be resident,
+ * and line bytes are collected in a reusable buffer before decoding. Blank lines are skipped.
+ *
+ * @author Brissach
+ * @since 17.10.2026 14:11
+ * © token-masks - All Rights Reserved
+ */
+public class LineSampleSource implements SampleSource {
+
+  private static final long WINDOW = 64L << 20;
+
+  private final Path file;
+
+  public LineSampleSource(@Nonnull Path file) {
+    this.file = file;
+  }
+
+  @Nonnull
+  @Override
+  public Cursor iterator() {
+    try {
+      return new MappedCursor(FileChannel.open(file, StandardOpenOption.READ));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open sample file " + file, e);
+    }
+  }
+
+  private final class MappedCursor implements Cursor {
+
+    private final FileChannel channel;
+    private final long length;
+    private long position;
+    private MappedByteBuffer window;
+    private byte[] line = new byte[256];
+    private long lineNumber;
+    private Sample next;
+    private boolean closed;
+
+    MappedCursor(FileChannel channel) throws IOException {
+      this.channel = channel;
+      this.length = channel.size();
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next == null && !closed)
+        next = read();
+      return next != null;
+    }
+
+    @Override
+    public Sample next() {
+      if (!hasNext()) throw new NoSuchElementException();
+      Sample sample = next;
+      next = null;
+      return sample;
+    }
+
+    private Sample read() {
+      try {
+        int size;
+        while ((size = readLine()) >= 0) {
+          lineNumber++;
+          if (size > 0 && line[size - 1] == '\r') size--;
+          if (size == 0) continue;
+
+          int tab = -1;
+          for (int i = 0; i < size; i++)
+            if (line[i] == '\t') {
+              tab = i;
+              break;
+            }
+
+          if (tab == -1)
+            throw new IllegalStateException(
+              "Malformed sample at " + file + ":" + lineNumber + ", expected 'masked<TAB>target'"
+            );
+
+          return new Sample(
+            new String(line, 0, tab, StandardCharsets.UTF_8),
+            new String(line, tab + 1, size - tab - 1, StandardCharsets.UTF_8).trim()
+          );
+        }
+        close();
+        return null;
+      } catch (IOException e) {
+        close();
+        throw new UncheckedIOException("Failed to read sample file " + file, e);
+      }
+    }
+
+    /**
+     * Reads the next line into the line buffer, mapping the next window of the file when needed.
+     *
+     * @return The number of bytes in the line without the line feed, or -1 at the end of the file.
+     */
+    private int readLine() throws IOException {
+      int size = 0;
+      boolean any = false;
+      while (true) {
+        if (window == null || !window.hasRemaining()) {
+          if (position >= length)
+            return any ? size : -1;
+          long span = Math.min(WINDOW, length - position);
+          window = channel.map(FileChannel.MapMode.READ_ONLY, position, span);
+          position += span;
+        }
+
+        byte b = window.get();
+        any = true;
+        if (b == '\n')
+          return size;
+
+        if (size == line.length)
+          line = Arrays.copyOf(line, size << 1);
+        line[size++] = b;
+      }
+    }
+
+    @Override
+    public void close() {
+      if (closed) return;
+      closed = true;
+      window = null;
+      try {
+        channel.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to close sample file " + file, e);
+      }
+    }
+  }
+}
@@ -7,18 +7,60 @@ import io.arctis.aurora.ops.Kwargs;
 import io.arctis.aurora_deep.BuildLayer;
 import io.arctis.aurora_deep.MultiLayerNeuralNetBuilder;
 import io.arctis.aurora_deep.MultiLayerNeuralNetwork;
+import org.briesearch.tokenmasks.metrics.Metrics;
+import org.briesearch.tokenmasks.sampling.Candidates;
+import org.briesearch.tokenmasks.sampling.NucleusSampler;
+import org.briesearch.tokenmasks.sampling.TemperatureSampler;
+import org.briesearch.tokenmasks.sampling.TokenSampler;
+import org.briesearch.tokenmasks.sampling.TopKSampler;
 import org.briesearch.tokenmasks.tokenizer.Tokenizer;
 
 import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /**
  * Model is responsible for generating masked samples, training a neural network to learn from those samples,
  * and generating predictions using the trained model. The model uses tokenization and encoding techniques for
  * processing text data, and provides functionality for forward propagation, model construction, and sample generation.
+ * <p>
+ * The input and output layers hold n_tokens token slots: the size of the fitted vocabulary plus reserve_tokens free
+ * slots (0 by default). Tokens fitted later through {@link #update(Map, double, double)} take the free slots, so the
+ * trained network keeps its shape and continues training from its current weights.
+ * <p>
+ * Sentences may hold up to n_masks MASK tokens (1 by default). The output layer then holds one slot of n_tokens
+ * probabilities per mask, so all masks of a sentence are predicted jointly in a single forward pass.
+ * <p>
+ * After training, {@link #freeze()} switches the model into inference mode: the tokenizer is replaced by an immutable
+ * snapshot and training is rejected. A frozen model takes no locks on the inference path ({@link #generate(String, double)},
+ * {@link #generateBatch(List, double)}, {@link #generateTopK(List, int)} and {@link #predict(String)}): pooled token id
+ * and input rows live in a lock-free queue and sampling draws from per-thread random generators, so a single shared instance scales
+ * with the number of request threads, platform or virtual, as far as the network's own predict does.
+ * <p>
+ * With cache_size set (or {@link #cache(int)}), outputs are kept in a {@link PredictionCache} keyed by the token ids of
+ * the input text, so repeated texts skip the forward pass. Lookups take a short per-shard lock. Training, constructing
+ * a network and growing the vocabulary invalidate the cached outputs.
+ * <p>
+ * Training progress and the latency of every prediction phase are reported to the configured {@link Metrics}
+ * ({@link #metrics(Metrics)}), nothing is printed.
  *
  * @author Brissach
  * @since 09.01.2025 14:57
@@ -28,15 +70,29 @@ public class Model {
 
   public static final String MASK = "MASK";
 
-  private final Encoder
-    positional = new PositionalEncoder(),
-    onehot = new OneHotEncoder();
+  private final PositionalEncoder positional = new PositionalEncoder();
+  private final Encoder input;
 
-  private final Tokenizer tokenizer;
+  private volatile Tokenizer tokenizer;
+  private volatile boolean frozen;
   private MultiLayerNeuralNetwork model;
   private final int n_vocab;
   private final int n_tokens;
+  private final int n_masks;
   private final long seed;
+  private final boolean sparse;
+  private final boolean offHeap;
+  private final Path scratchDir;
+  private final int threads;
+  private final Kwargs kwargs;
+  private final Queue<Scratch> scratches = new ConcurrentLinkedQueue<>();
+  private ExecutorService executor = ForkJoinPool.commonPool();
+  private TokenSampler sampler;
+  private Supplier<? extends Random> random = ThreadLocalRandom::current;
+  private volatile PredictionCache cache;
+  private volatile Metrics metrics = Metrics.NONE;
+  /* increased whenever the network or its weights change, invalidating cached outputs */
+  private volatile int generation;
 
   /**
    * Constructs a Model instance using the provided tokenizer, samples, and additional parameters.
@@ -44,38 +100,166 @@ public class Model {
    *
    * @param tokenizer The tokenizer used to tokenize input text.
    * @param samples A map of sample sentences and their corresponding masks.
-   * @param kwargs Additional keyword arguments (e.g., vocabulary size, seed).
+   * @param kwargs Additional keyword arguments (e.g., vocabulary size, seed, sparse encoding, off-heap training rows,
+   *               the dimension d_model of the fixed random-indexing co-occurrence projection of the input, which
+   *               training never updates, reserved token slots, and the training parameters consumed by {@link Trainer}).
    */
   public Model(Tokenizer tokenizer, Map<String, String> samples, Kwargs kwargs) {
-    tokenizer.fit(MASK);
+    this(tokenizer, SampleSource.of(samples), kwargs);
+  }
 
-    for (Map.Entry<String, String> entry : samples.entrySet()) {
-      String tokens = entry.getKey();
-      String mask = entry.getValue();
-      tokenizer.fit(tokenizer.tokenize(tokens));
-      tokenizer.fit(tokenizer.tokenize(mask));
-    }
+  /**
+   * Constructs a Model instance from a streaming sample source. The source is read once to fit the tokenizer (and
+   * once more to build the fixed co-occurrence projection when d_model is set), without holding the samples in memory.
+   *
+   * @param tokenizer The tokenizer used to tokenize input text.
+   * @param samples The source of the samples.
+   * @param kwargs Additional keyword arguments, see {@link #Model(Tokenizer, Map, Kwargs)}.
+   */
+  public Model(Tokenizer tokenizer, SampleSource samples, Kwargs kwargs) {
+    this(fit(tokenizer, samples, kwargs), samples, kwargs, null);
+  }
 
-    n_tokens = tokenizer.asMap().size();
+  /**
+   * Constructs a Model instance around an already fitted tokenizer.
+   *
+   * @param tokenizer The fitted tokenizer.
+   * @param samples The source the co-occurrence projection is built from when d_model is set and none is given.
+   * @param kwargs Additional keyword arguments, see {@link #Model(Tokenizer, Map, Kwargs)}.
+   * @param embeddings A previously built co-occurrence projection, or null.
+   */
+  Model(Tokenizer tokenizer, SampleSource samples, Kwargs kwargs, CooccurrenceEncoder embeddings) {
+    int reserve = kwargs.get("reserve_tokens", 0);
+    Preconditions.checkArgument(reserve >= 0, "reserve_tokens must not be negative, got %s", reserve);
+    n_tokens = tokenizer.size() + reserve;
     this.n_vocab = kwargs.get("n_vocab", 32);
     this.seed = kwargs.get("seed", 24L);
+    this.sparse = kwargs.get("sparse", false);
+    this.offHeap = kwargs.get("off_heap", false);
+    this.scratchDir = Paths.get(kwargs.get("scratch_dir", System.getProperty("java.io.tmpdir")));
+    Preconditions.checkArgument(!(offHeap && sparse), "off_heap stores dense rows, sparse must be false");
+    this.n_masks = kwargs.get("n_masks", 1);
+    Preconditions.checkArgument(n_masks > 0, "n_masks must be positive, got %s", n_masks);
+    this.threads = threads(kwargs);
+    this.kwargs = kwargs;
     this.tokenizer = tokenizer;
+
+    this.sampler = sampler(kwargs.get("top_k", 0), kwargs.get("top_p", 1.0));
+    int cacheSize = kwargs.get("cache_size", 0);
+    this.cache = cacheSize > 0 ? new PredictionCache(cacheSize) : null;
+
+    int d_model = kwargs.get("d_model", 0);
+    Preconditions.checkArgument(
+      d_model == 0 || !sparse,
+      "Sparse encoding is only supported by the positional one-hot input, d_model must be 0"
+    );
+
+    if (d_model > 0 && embeddings == null) {
+      embeddings = new CooccurrenceEncoder(d_model, seed);
+      embeddings.fit(tokenizer, () -> {
+        SampleSource.Cursor cursor = samples.iterator();
+        return new Iterator<String>() {
+          @Override
+          public boolean hasNext() {
+            return cursor.hasNext();
+          }
+
+          @Override
+          public String next() {
+            return cursor.next().unmasked(MASK);
+          }
+        };
+      });
+    }
+    this.input = d_model > 0 ? embeddings : positional;
+  }
+
+  /**
+   * Fits the tokenizer with the mask token and every token of the samples, across the common pool.
+   */
+  private static Tokenizer fit(Tokenizer tokenizer, SampleSource samples, Kwargs kwargs) {
+    tokenizer.fit(MASK);
+    return Ingestion.fit(tokenizer, samples, ForkJoinPool.commonPool(), threads(kwargs));
+  }
+
+  private static int threads(Kwargs kwargs) {
+    return Math.max(1, kwargs.get("threads", Runtime.getRuntime().availableProcessors()));
+  }
+
+  /**
+   * Selects the sampling strategy for the top_k (0 to disable) and top_p (1 to disable) parameters.
+   */
+  private static TokenSampler sampler(int top_k, double top_p) {
+    if (top_p < 1.0)
+      return new NucleusSampler(top_p, top_k > 0 ? top_k : Integer.MAX_VALUE);
+    if (top_k > 0)
+      return new TopKSampler(top_k);
+    return TemperatureSampler.INSTANCE;
+  }
+
+  /**
+   * Restores a model and its tokenizer from a checkpoint written by {@link #save(Path)}, see {@link Checkpoint#load(Path)}.
+   *
+   * @param file The checkpoint file.
+   * @return The restored model, ready for inference.
+   * @throws IOException If the checkpoint cannot be read or records no tokenizer configuration.
+   */
+  @Nonnull
+  public static Model load(@Nonnull Path file) throws IOException {
+    return Checkpoint.load(file);
+  }
+
+  /**
+   * Restores a model from a checkpoint written by {@link #save(Path)}, see {@link Checkpoint#load(Path, Tokenizer)}.
+   *
+   * @param file The checkpoint file.
+   * @param tokenizer A fresh tokenizer configured like the one the model was trained with.
+   * @return The restored model, ready for inference.
+   * @throws IOException If the checkpoint cannot be read.
+   */
+  @Nonnull
+  public static Model load(@Nonnull Path file, @Nonnull Tokenizer tokenizer) throws IOException {
+    return Checkpoint.load(file, tokenizer);
+  }
+
+  /**
+   * Writes the tokenizer vocabulary and settings, parameters and network of this model to a checkpoint file.
+   *
+   * @param file The checkpoint file.
+   * @throws IOException If the checkpoint cannot be written.
+   */
+  public void save(@Nonnull Path file) throws IOException {
+    Checkpoint.save(this, file);
+  }
+
+  /**
+   * Generates masked samples for the given list of sentences, in parallel on the model executor
+   * (see {@link Ingestion#mask(List, String, long, int, ExecutorService, int)}).
+   * With n_masks above 1, every sentence gets between 1 and n_masks masks, so the model also learns to fill
+   * sentences with fewer blanks than slots.
+   *
+   * @param sentences A list of sentences for which to generate samples.
+   * @return One sample per sentence, in the order of the sentences.
+   */
+  @Nonnull
+  public List<Sample> generateSampleList(@Nonnull List<String> sentences) {
+    return Ingestion.mask(sentences, MASK, seed, n_masks, executor, threads);
   }
 
   /**
-   * Generates masked samples for the given list of sentences.
+   * Generates masked samples for the given list of sentences, see {@link #generateSampleList(List)}.
    *
    * @param sentences A list of sentences for which to generate samples.
-   * @return A map where the keys are original sentences, and values are the corresponding masked sentences.
+   * @return A map where the keys are the masked sentences, and values are the corresponding targets.
+   * Sentences that mask into the same text collapse into a single entry, the last one winning.
+   * @deprecated Use {@link #generateSampleList(List)}, which keeps duplicate samples and the order of the sentences.
    */
+  @Deprecated
   @Nonnull
   public Map<String, String> generateSamples(@Nonnull List<String> sentences) {
-    SentenceMasker masker = new SentenceMasker(seed, MASK);
     Map<String, String> samples = new HashMap<>();
-    sentences.forEach(sentence -> {
-      String[] masked = masker.mask(sentence);
-      samples.put(masked[0], masked[1]);
-    });
+    for (Sample sample : generateSampleList(sentences))
+      samples.put(sample.masked(), sample.target());
     return samples;
   }
 
@@ -87,16 +271,20 @@ public class Model {
    */
   @Nonnull
   public Model construct(MultiLayerNeuralNetwork model) {
+    checkNotFrozen();
     this.model = model;
+    generation++;
     return this;
   }
 
   @Nonnull
   public Model construct(MultiLayerNeuralNetBuilder model) {
+    checkNotFrozen();
     this.model = model
       .seed(seed)
-      .inputSize(n_vocab * (n_tokens + 1))
+      .inputSize(input.dimension(n_tokens, n_vocab))
       .build();
+    generation++;
     return this;
   }
 
@@ -111,48 +299,217 @@ public class Model {
     return construct(
       MultiLayerNeuralNetwork.configureContexts()
         .seed(seed)
-        .inputSize(n_vocab * (n_tokens + 1))
+        .inputSize(input.dimension(n_tokens, n_vocab))
         .addLayer(new BuildLayer()
           .size(32)
           .activation(ActivationFunction.ARCTAN))
         .outputLayer(new BuildLayer()
-          .size(n_tokens)
+          .size(n_masks * n_tokens)
           .activation(ActivationFunction.SOFTMAX))
         .build());
   }
 
+  /**
+   * Sets the executor used for parallel work such as encoding samples. Defaults to the common fork join pool.
+   *
+   * @param executor The executor, or null to run everything on the calling thread.
+   * @return The current Model instance.
+   */
+  @Nonnull
+  public Model executor(ExecutorService executor) {
+    this.executor = executor;
+    return this;
+  }
+
+  /**
+   * Sets the strategy tokens are sampled with, replacing the one selected through top_k and top_p.
+   *
+   * @param sampler The sampler.
+   * @return The current Model instance.
+   */
+  @Nonnull
+  public Model sampler(@Nonnull TokenSampler sampler) {
+    this.sampler = sampler;
+    return this;
+  }
+
+  /**
+   * Keeps the outputs of up to capacity recently predicted texts, see {@link PredictionCache}.
+   *
+   * @param capacity The number of cached outputs, 0 to disable caching.
+   * @return The current Model instance.
+   */
+  @Nonnull
+  public Model cache(int capacity) {
+    Preconditions.checkArgument(capacity >= 0, "capacity must not be negative, got %s", capacity);
+    this.cache = capacity > 0 ? new PredictionCache(capacity) : null;
+    return this;
+  }
+
+  /**
+   * @return The prediction cache with its hit and miss counters, or null if caching is disabled.
+   */
+  public PredictionCache cache() {
+    return cache;
+  }
+
+  /**
+   * Sets the metrics training progress and prediction latencies are reported to, and registers the vocabulary and
+   * cache sizes as gauges. Defaults to {@link Metrics#NONE}, which records nothing; {@link Metrics#console()} prints
+   * the progress of every epoch.
+   *
+   * @param metrics The metrics.
+   * @return The current Model instance.
+   */
+  @Nonnull
+  public Model metrics(@Nonnull Metrics metrics) {
+    metrics.gauge("vocabulary.size", () -> tokenizer.size());
+    metrics.gauge("cache.size", () -> {
+      PredictionCache cache = this.cache;
+      return cache == null ? 0 : cache.size();
+    });
+    metrics.gauge("cache.hit_rate", () -> {
+      PredictionCache cache = this.cache;
+      return cache == null ? 0.0 : cache.hitRate();
+    });
+    this.metrics = metrics;
+    return this;
+  }
+
+  @Nonnull
+  public Metrics metrics() {
+    return metrics;
+  }
+
+  /**
+   * Sets the source of randomness for sampling, called once per sampled token. Defaults to the per-thread
+   * {@link ThreadLocalRandom}. Supplying a single seeded generator makes sampling reproducible for one thread.
+   *
+   * @param random The supplier of the generator.
+   * @return The current Model instance.
+   */
+  @Nonnull
+  public Model random(@Nonnull Supplier<? extends Random> random) {
+    this.random = random;
+    return this;
+  }
+
   /**
    * Performs forward propagation on the model using the given samples.
    * This method trains the model with the samples until the loss is below the given preference value.
+   * Samples are encoded in parallel and trained in mini-batches as configured through the model parameters
+   * (see {@link Trainer}). Targets are kept as token ids, class ids when every target is a single token, and only
+   * expanded to the output width batch by batch.
+   * With off_heap set, dense inputs are encoded into an {@link OffHeapMatrix} in scratch_dir instead of the heap.
    *
    * @param samples A map of input-output pairs (tokens and corresponding masks) for training.
    * @param alpha The learning rate for training.
    * @param preference The threshold for stopping the training (based on loss).
    */
   public void forward(Map<String, String> samples, double alpha, double preference) {
-    int size = samples.size();
-    double[][] inputs = new double[size][];
-    double[][] outputs = new double[size][];
-    int i = 0;
+    checkNotFrozen();
+    Trainer trainer = new Trainer(model, executor, kwargs).metrics(metrics);
+    generation++;
+    try {
+      train(trainer, new ArrayList<>(samples.entrySet()), alpha, preference);
+    } finally {
+      model = trainer.network();
+      generation++;
+    }
+  }
+
+  private void train(Trainer trainer, List<Map.Entry<String, String>> entries, double alpha, double preference) {
+    int size = entries.size();
+    int[] classes = classIds(trainer, entries);
+    SparseVector[] targets = classes == null ? targets(trainer, entries) : null;
 
-    for (Map.Entry<String, String> entry : samples.entrySet()) {
-      inputs[i] = positional.encode(tokenizer, entry.getKey(), n_vocab);
-      outputs[i] = onehot.encode(tokenizer, entry.getValue(), -1);
-      i++;
+    if (sparse) {
+      SparseVector[] inputs = new SparseVector[size];
+      trainer.parallel(size, i -> inputs[i] = encodeSparse(tokenizer.tokenize(entries.get(i).getKey())));
+
+      metrics.training(size, positional.dimension(n_tokens, n_vocab), n_masks * n_tokens);
+      if (classes != null)
+        trainer.fit(inputs, classes, n_tokens, alpha, preference);
+      else
+        trainer.fit(inputs, targets, alpha, preference);
+      return;
     }
 
-    System.out.println("Shape: " + inputs[0].length);
+    if (offHeap) {
+      trainOffHeap(trainer, entries, classes, targets, alpha, preference);
+      return;
+    }
 
-    double loss = 1.0;
-    int epoch = 0;
-    while (loss > preference) {
-      model.train(inputs, outputs, alpha);
-      loss = model.loss(inputs, outputs);
-      epoch++;
-      System.out.println("Epoch: " + epoch + " Loss: " + loss);
+    double[][] inputs = new double[size][];
+    trainer.parallel(size, i -> {
+      String text = entries.get(i).getKey();
+      inputs[i] = input == positional
+        ? encodeSparse(tokenizer.tokenize(text)).densify()
+        : input.encode(tokenizer, text, n_vocab);
+    });
+
+    metrics.training(size, inputs[0].length, n_masks * n_tokens);
+    if (classes != null)
+      trainer.fit(inputs, classes, n_tokens, alpha, preference);
+    else
+      trainer.fit(inputs, targets, alpha, preference);
+  }
+
+  /**
+   * Encodes the inputs straight into a memory-mapped scratch file, deleted once training completed.
+   */
+  private void trainOffHeap(Trainer trainer, List<Map.Entry<String, String>> entries, int[] classes,
+                            SparseVector[] targets, double alpha, double preference) {
+    int size = entries.size();
+    int width = input.dimension(n_tokens, n_vocab);
+    try (OffHeapMatrix inputs = OffHeapMatrix.create(scratchDir, size, width)) {
+      trainer.parallel(size, i -> {
+        Scratch scratch = scratches.poll();
+        if (scratch == null)
+          scratch = new Scratch(new double[width]);
+
+        int length = scratch.tokenize(tokenizer, entries.get(i).getKey());
+        input.encode(tokenizer, scratch.ids, length, n_tokens, n_vocab, inputs.row(i));
+        scratches.offer(scratch);
+      });
+
+      metrics.training(size, width, n_masks * n_tokens);
+      if (classes != null)
+        trainer.fit(inputs, classes, n_tokens, alpha, preference);
+      else
+        trainer.fit(inputs, targets, alpha, preference);
+    } catch (IOException e) {
+      throw new UncheckedIOException("The off-heap scratch file cannot be created in " + scratchDir, e);
     }
   }
 
+  /**
+   * Encodes the targets of single-mask samples as class ids, which the trainer expands to one-hot rows per batch
+   * without keeping a vector per sample.
+   *
+   * @return The token id of every target, or null with several masks or if any target is not exactly one token
+   * within the n_tokens slots, in which case targets are encoded through {@link #target(String)}.
+   */
+  private int[] classIds(Trainer trainer, List<Map.Entry<String, String>> entries) {
+    if (n_masks != 1) return null;
+
+    int[] ids = new int[entries.size()];
+    AtomicBoolean single = new AtomicBoolean(true);
+    trainer.parallel(ids.length, i -> {
+      List<String> tokens = tokenizer.tokenize(entries.get(i).getValue());
+      int index = tokens.size() == 1 ? tokenizer.indexOfOrUnknown(tokens.get(0)) : -1;
+      if (index < 0 || index >= n_tokens) single.set(false);
+      ids[i] = index;
+    });
+    return single.get() ? ids : null;
+  }
+
+  private SparseVector[] targets(Trainer trainer, List<Map.Entry<String, String>> entries) {
+    SparseVector[] targets = new SparseVector[entries.size()];
+    trainer.parallel(targets.length, i -> targets[i] = target(entries.get(i).getValue()));
+    return targets;
+  }
+
   /**
    * Default forward propagation with standard values for alpha and preference.
    *
@@ -163,34 +520,223 @@ public class Model {
   }
 
   /**
-   * Generates a string by replacing the MASK token in the input text with a predicted token.
+   * Performs forward propagation on the model using a streaming sample source.
+   * Every epoch re-reads the source and encodes it batch by batch into reusable buffers, so memory stays bounded
+   * by the batch size (batch_size, 64 when unset) regardless of the size of the corpus.
+   *
+   * @param samples The source of the samples.
+   * @param alpha The learning rate for training.
+   * @param preference The threshold for stopping the training (based on loss).
+   */
+  public void forward(SampleSource samples, double alpha, double preference) {
+    checkNotFrozen();
+    Trainer trainer = new Trainer(model, executor, kwargs).metrics(metrics);
+    generation++;
+    try {
+      metrics.training(-1, input.dimension(n_tokens, n_vocab), n_masks * n_tokens);
+      trainer.fit(samples, new StreamEncoder(), alpha, preference);
+    } finally {
+      model = trainer.network();
+      generation++;
+    }
+  }
+
+  /**
+   * Tokenizes sentences once into binary shards of token ids, see {@link CompiledCorpus}. Training on the corpus
+   * through {@link #forward(CompiledCorpus, double, double)} then never tokenizes text again, across epochs and runs.
+   *
+   * @param sentences The unmasked sentences, made of tokens the tokenizer was fitted on.
+   * @param directory The directory of the shards.
+   * @return The compiled corpus.
+   * @throws IOException If a shard cannot be written.
+   * @throws IllegalStateException If the sentences hold tokens unknown to a tokenizer registering them on
+   * tokenization.
+   */
+  @Nonnull
+  public CompiledCorpus compile(@Nonnull Iterable<String> sentences, @Nonnull Path directory) throws IOException {
+    return CompiledCorpus.compile(tokenizer, sentences, directory, CompiledCorpus.DEFAULT_SHARD);
+  }
+
+  /**
+   * Performs forward propagation on a compiled corpus, streamed like {@link #forward(SampleSource, double, double)}.
+   * Every epoch masks the sentences anew on their token ids, seeded by the model seed, and encodes the ids straight
+   * into the batch rows, without creating strings. Masks replace single tokens, where the text form masks whitespace
+   * separated words.
+   *
+   * @param corpus The corpus, compiled against the vocabulary of this model.
+   * @param alpha The learning rate for training.
+   * @param preference The threshold for stopping the training (based on loss).
+   * @throws IllegalStateException If the corpus was compiled against another vocabulary, or the vocabulary holds no
+   * MASK token.
+   */
+  public void forward(@Nonnull CompiledCorpus corpus, double alpha, double preference) {
+    checkNotFrozen();
+    Preconditions.checkState(
+      corpus.matches(tokenizer), "The corpus was compiled against another vocabulary, compile it with this model"
+    );
+    int maskId = tokenizer.indexOf(MASK);
+    Preconditions.checkState(maskId != -1 && maskId < n_tokens, "The vocabulary holds no %s token", MASK);
+
+    Trainer trainer = new Trainer(model, executor, kwargs).metrics(metrics);
+    generation++;
+    try {
+      metrics.training(-1, input.dimension(n_tokens, n_vocab), n_masks * n_tokens);
+      trainer.fit(epoch -> corpus.masked(maskId, seed, n_masks, epoch), new CorpusEncoder(), alpha, preference);
+    } finally {
+      model = trainer.network();
+      generation++;
+    }
+  }
+
+  /**
+   * Continues training on new or changed samples only. The tokens of the samples are fitted into the tokenizer
+   * first and take the reserved token slots, so the network keeps its shape and weights and only has to learn
+   * the given samples instead of being rebuilt and retrained on the whole corpus.
+   *
+   * @param samples The new or changed samples.
+   * @param alpha The learning rate for training.
+   * @param preference The threshold for stopping the training (based on loss).
+   * @throws IllegalStateException If the new tokens exceed the reserved slots. The tokens are fitted anyway and
+   * treated like unknown tokens, a model with more reserve_tokens has to be built to learn them.
+   */
+  public void update(@Nonnull Map<String, String> samples, double alpha, double preference) {
+    fitReserved(SampleSource.of(samples));
+    forward(samples, alpha, preference);
+  }
+
+  /**
+   * Continues training on a streaming source of new or changed samples, see {@link #update(Map, double, double)}.
+   *
+   * @param samples The source of the new or changed samples.
+   * @param alpha The learning rate for training.
+   * @param preference The threshold for stopping the training (based on loss).
+   * @throws IllegalStateException If the new tokens exceed the reserved slots.
+   */
+  public void update(@Nonnull SampleSource samples, double alpha, double preference) {
+    fitReserved(samples);
+    forward(samples, alpha, preference);
+  }
+
+  /**
+   * Fits the tokens of the samples into the free slots. The vocabulary size is projected from the counted tokens
+   * before anything is fitted, so a rejected update leaves the tokenizer untouched. Only tokenizers that cannot be
+   * frozen register tokens while they are counted, see
+   * {@link Ingestion#count(Tokenizer, SampleSource, ExecutorService, int)}.
+   */
+  private void fitReserved(SampleSource samples) {
+    checkNotFrozen();
+    Map<String, Long> counts = Ingestion.count(tokenizer, samples, executor, threads);
+    int projected = tokenizer.projectedSize(counts);
+    Preconditions.checkState(
+      projected <= n_tokens,
+      "The vocabulary would grow to %s tokens, but the model holds %s token slots, see reserve_tokens",
+      projected, n_tokens
+    );
+    tokenizer.fit(counts);
+    generation++;
+  }
+
+  /**
+   * Default streaming forward propagation with standard values for alpha and preference.
+   *
+   * @param samples The source of the samples.
+   */
+  public void forward(SampleSource samples) {
+    forward(samples, 0.1, 0.03);
+  }
+
+  /**
+   * Generates a string by replacing the MASK tokens in the input text with predicted tokens.
    * The prediction is made using the trained model and optionally controlled by temperature.
+   * All masks, up to n_masks, are predicted jointly in a single forward pass.
    *
    * @param text The input text containing the MASK token.
    * @param temperature The temperature controlling the randomness of the prediction.
-   * @return The generated text with the MASK token replaced by the predicted token.
-   * @throws IllegalStateException If the input text does not contain the MASK token.
+   * @return The generated text with the MASK tokens replaced by the predicted tokens.
+   * @throws IllegalStateException If the input text does not contain the MASK token, or more than n_masks.
    */
   @Nonnull
   public String generate(@Nonnull String text, double temperature)
     throws IllegalStateException {
+    return generate(text, temperature, false);
+  }
 
+  /**
+   * Generates a string by replacing the MASK tokens in the input text with predicted tokens.
+   * With refinement, the masks are filled one at a time: every pass fixes the slot the network is most confident
+   * about, comparing the renormalized slot probabilities (see {@link #predict(String)}), and predicts the remaining
+   * ones again with that token in context. This takes one forward pass per mask instead of a single one.
+   *
+   * @param text The input text containing the MASK token.
+   * @param temperature The temperature controlling the randomness of the prediction.
+   * @param refine Whether to fill the most confident slots first.
+   * @return The generated text with the MASK tokens replaced by the predicted tokens.
+   * @throws IllegalStateException If the input text does not contain the MASK token, or more than n_masks.
+   */
+  @Nonnull
+  public String generate(@Nonnull String text, double temperature, boolean refine)
+    throws IllegalStateException {
+
+    int masks = masks(text);
+    if (!refine || masks == 1) {
+      double[] output = output(text);
+      String[] fills = new String[masks];
+      for (int slot = 0; slot < masks; slot++)
+        fills[slot] = select(slot(output, slot), temperature);
+      return SentenceMasker.fill(text, MASK, fills);
+    }
+
+    String current = text;
+    int tokens = Math.min(tokenizer.size(), n_tokens);
+    for (int remaining = masks; remaining > 0; remaining--) {
+      double[] output = output(current);
+      int best = Slots.mostConfident(output, remaining, n_tokens, tokens);
+
+      String[] fills = new String[best + 1];
+      fills[best] = select(slot(output, best), temperature);
+      current = SentenceMasker.fill(current, MASK, fills);
+    }
+    return current;
+  }
+
+  /**
+   * Counts the masks of an input text.
+   *
+   * @throws IllegalStateException If the input text does not contain the MASK token, or more than n_masks.
+   */
+  private int masks(String text) {
+    int masks = SentenceMasker.count(text, MASK);
     Preconditions.checkState(
-      text.contains(MASK),
-      "Input text must contain the MASK token. Mask token index for context: " + tokenizer.indexOf(MASK)
+      masks > 0,
+      "Input text must contain the MASK token. Mask token index for context: %s", tokenizer.indexOf(MASK)
     );
+    Preconditions.checkState(
+      masks <= n_masks,
+      "Input text contains %s MASK tokens, but the model predicts at most %s (n_masks)", masks, n_masks
+    );
+    return masks;
+  }
 
-    double[] inputVector = positional
-      .encode(
-        tokenizer,
-        text,
-        n_vocab
-      );
+  /**
+   * @return The probabilities of a single mask slot within the network output, limited to the fitted tokens and
+   * renormalized to sum up to 1, see {@link Slots}.
+   */
+  private double[] slot(double[] output, int slot) {
+    int tokens = Math.min(tokenizer.size(), n_tokens);
+    if (n_masks == 1 && tokens == n_tokens) return output;
+    return Slots.probabilities(output, slot, n_tokens, tokens);
+  }
 
-    ContextVector outputProbabilities = ContextVector.vector(model.predict(inputVector));
+  /**
+   * Picks the token of a slot, the most probable one at a temperature of 1.0 and a sampled one otherwise.
+   */
+  private String select(double[] probabilities, double temperature) {
+    Metrics metrics = this.metrics;
+    long start = metrics != Metrics.NONE ? System.nanoTime() : 0L;
     int tokenIndex = temperature == 1.0
-      ? outputProbabilities.argmax()
-      : randomSampleToken(outputProbabilities, temperature);
+      ? Candidates.argmax(probabilities)
+      : sampler.sample(probabilities, temperature, random.get());
+    if (metrics != Metrics.NONE) lap(metrics, Metrics.Phase.SAMPLE, start);
 
     String bestToken = tokenizer.wordOf(tokenIndex);
 
@@ -198,43 +744,371 @@ public class Model {
       bestToken,
       "Best token index not found in tokenizer."
     );
+    return bestToken;
+  }
+
+  /**
+   * Generates predictions for many masked texts at once, see {@link #generate(String, double)}.
+   * Texts are split into ranges across the model executor (threads) and share pooled input rows.
+   *
+   * @param texts The input texts, each containing the MASK token.
+   * @param temperature The temperature controlling the randomness of the prediction.
+   * @return The generated texts in the order of the inputs.
+   * @throws IllegalStateException If any input text does not contain the MASK token.
+   */
+  @Nonnull
+  public List<String> generateBatch(@Nonnull List<String> texts, double temperature)
+    throws IllegalStateException {
 
-    return text.replace(MASK, bestToken);
+    String[] results = new String[texts.size()];
+    Parallel.forEach(executor, threads, results.length, i -> results[i] = generate(texts.get(i), temperature));
+    return Arrays.asList(results);
   }
 
   /**
-   * Samples a token index based on the output probabilities, adjusted for temperature.
+   * Generates the k most probable completions for many masked texts at once.
+   * With several masks, completions are ranked by their joint probability, the product of the renormalized
+   * probabilities of the tokens filling each slot, see {@link #predict(String)}.
+   *
+   * @param texts The input texts, each containing the MASK token.
+   * @param k The number of completions per text.
+   * @return Per input text, its completions ordered from the most to the least probable.
+   * @throws IllegalStateException If any input text does not contain the MASK token, or more than n_masks.
+   */
+  @Nonnull
+  public List<List<String>> generateTopK(@Nonnull List<String> texts, int k)
+    throws IllegalStateException {
+
+    Preconditions.checkArgument(k > 0, "k must be positive, got %s", k);
+
+    List<List<String>> results = new ArrayList<>(Collections.nCopies(texts.size(), null));
+    Parallel.forEach(executor, threads, results.size(), i -> {
+      String text = texts.get(i);
+      int masks = masks(text);
+
+      double[] output = output(text);
+      double[][] probabilities = new double[masks][];
+      for (int slot = 0; slot < masks; slot++)
+        probabilities[slot] = slot(output, slot);
+
+      int[][] ranked = Slots.top(probabilities, k);
+      List<String> completions = new ArrayList<>(ranked.length);
+      String[] fills = new String[masks];
+      candidates:
+      for (int[] tokens : ranked) {
+        for (int slot = 0; slot < masks; slot++) {
+          fills[slot] = tokenizer.wordOf(tokens[slot]);
+          if (fills[slot] == null) continue candidates;
+        }
+        completions.add(SentenceMasker.fill(text, MASK, fills));
+      }
+      results.set(i, completions);
+    });
+    return results;
+  }
+
+  /**
+   * Runs the network on a masked text. The positional input is scattered into a pooled dense row that is cleared
+   * again afterwards, so steady-state inference does not allocate input vectors. With the prediction cache enabled,
+   * repeated texts return a copy of the cached output instead.
+   *
+   * @param text The input text.
+   * @return The output probabilities for each token, in n_masks consecutive slots of one probability per token.
+   * The aurora output layer is a single softmax over all slots, so a slot sums up to its share of the mass rather
+   * than to 1 and raw values are not comparable between slots. Generation renormalizes every slot over the fitted
+   * tokens before comparing or ranking slots. Training has no such per-slot normalization: the loss is taken on the
+   * shared softmax, with the marks of a target scaled to add up to 1.
+   */
+  @Nonnull
+  public double[] predict(@Nonnull String text) {
+    return cache == null ? run(text) : output(text).clone();
+  }
+
+  /**
+   * @return The output of the network for a text, served from the prediction cache if enabled. Shared with the
+   * cache, so it must not be modified.
+   */
+  private double[] output(String text) {
+    PredictionCache cache = this.cache;
+    return cache == null ? run(text) : cache.get(tokenizer, text, generation, this::run);
+  }
+
+  private double[] run(String text) {
+    Metrics metrics = this.metrics;
+    boolean timed = metrics != Metrics.NONE;
+    long start = timed ? System.nanoTime() : 0L;
+
+    Scratch scratch = scratches.poll();
+    if (scratch == null)
+      scratch = new Scratch(new double[input.dimension(n_tokens, n_vocab)]);
+
+    try {
+      int length = scratch.tokenize(tokenizer, text);
+      long tokenized = timed ? lap(metrics, Metrics.Phase.TOKENIZE, start) : 0L;
+
+      input.encode(tokenizer, scratch.ids, length, n_tokens, n_vocab, scratch.row);
+      long encodedAt = timed ? lap(metrics, Metrics.Phase.ENCODE, tokenized) : 0L;
+
+      double[] output = model.predict(scratch.input);
+      if (timed) lap(metrics, Metrics.Phase.PREDICT, encodedAt);
+      return output;
+    } finally {
+      scratches.offer(scratch);
+    }
+  }
+
+  /**
+   * Encodes tokens into the positional layout of the n_tokens slots of the network.
+   */
+  private SparseVector encodeSparse(List<String> tokens) {
+    return positional.encodeSparse(tokenizer, tokens, n_vocab, n_tokens);
+  }
+
+  /**
+   * Records the time since a timestamp for a phase.
+   *
+   * @return The current timestamp, the start of the next phase.
+   */
+  private static long lap(Metrics metrics, Metrics.Phase phase, long since) {
+    long now = System.nanoTime();
+    metrics.latency(phase, now - since);
+    return now;
+  }
+
+  /**
+   * Encodes the target of a sample into the output layout. With a single slot, every token of the target is marked
+   * with 1. With several slots, the whitespace separated words of the target fill consecutive slots, and the marks
+   * are scaled to add up to 1 to match the softmax shared by all slots.
+   *
+   * @param target The target of a sample.
+   * @return The sparse target of width n_masks * n_tokens.
+   */
+  private SparseVector target(String target) {
+    String[] words = n_masks == 1 ? new String[]{target} : target.trim().split("\\s+");
+    int slots = Math.min(words.length, n_masks);
+
+    int[][] indices = new int[slots][];
+    int marks = 0;
+    for (int slot = 0; slot < slots; slot++) {
+      List<String> tokens = tokenizer.tokenize(words[slot]);
+      indices[slot] = new int[tokens.size()];
+      for (int t = 0; t < tokens.size(); t++) {
+        int index = tokenizer.indexOfOrUnknown(tokens.get(t));
+        indices[slot][t] = index < n_tokens ? index : -1;
+        if (indices[slot][t] != -1) marks++;
+      }
+    }
+
+    double mark = n_masks > 1 && marks > 0 ? 1.0 / marks : 1.0;
+    SparseVector encoded = new SparseVector(n_masks * n_tokens, marks);
+    for (int slot = 0; slot < slots; slot++)
+      for (int index : indices[slot])
+        if (index != -1)
+          encoded.put(slot * n_tokens + index, mark);
+    return encoded;
+  }
+  /**
+   * Encodes the target of a sample into a reusable output row, see {@link #target(String)}. Single-mask targets are
+   * encoded from token ids without allocating.
+   */
+  private void target(String target, EncodedRow row, Scratch scratch) {
+    if (n_masks > 1) {
+      SparseVector encoded = target(target);
+      row.clear();
+      for (int i = 0; i < encoded.size(); i++)
+        row.set(encoded.index(i), encoded.value(i));
+      return;
+    }
+
+    row.clear();
+    int length = Math.min(scratch.tokenize(tokenizer, target), scratch.ids.length);
+    int unknown = tokenizer.unknownIndex();
+    for (int t = 0; t < length; t++) {
+      int index = scratch.ids[t] != -1 ? scratch.ids[t] : unknown;
+      if (index != -1 && index < n_tokens)
+        row.set(index, 1.0);
+    }
+  }
+
+  /**
+   * Encodes the masked token ids of a sample into a reusable output row, one token per slot, like
+   * {@link #target(String)} does for single-token words.
+   */
+  private void target(int[] targets, EncodedRow row) {
+    row.clear();
+    int slots = Math.min(targets.length, n_masks);
+    int unknown = tokenizer.unknownIndex();
+    int marks = 0;
+    for (int slot = 0; slot < slots; slot++) {
+      int index = targets[slot] != -1 ? targets[slot] : unknown;
+      if (index != -1 && index < n_tokens) marks++;
+    }
+
+    double mark = n_masks > 1 && marks > 0 ? 1.0 / marks : 1.0;
+    for (int slot = 0; slot < slots; slot++) {
+      int index = targets[slot] != -1 ? targets[slot] : unknown;
+      if (index != -1 && index < n_tokens)
+        row.set(slot * n_tokens + index, mark);
+    }
+  }
+
+
+  /**
+   * Samples a token index based on the output probabilities, adjusted for temperature, with the sampler of the model
+   * (see {@link #sampler(TokenSampler)}).
    *
    * @param outputProbabilities The output probabilities for each token.
    * @param temperature The temperature value controlling the randomness of the sampling.
    * @return The index of the randomly sampled token.
    */
   public int randomSampleToken(ContextVector outputProbabilities, double temperature) {
-    double[] probabilities = outputProbabilities.transform();
+    return sampler.sample(outputProbabilities.transform(), temperature, random.get());
+  }
+
+  /**
+   * Switches the model into inference mode. The tokenizer is replaced by a frozen snapshot that never registers
+   * tokens, and further training or construction is rejected. See the class documentation for the concurrency
+   * guarantees of a frozen model.
+   *
+   * @return The current Model instance.
+   * @throws UnsupportedOperationException If the tokenizer does not support freezing.
+   */
+  @Nonnull
+  public synchronized Model freeze() {
+    if (!frozen) {
+      tokenizer = tokenizer.freeze();
+      frozen = true;
+    }
+    return this;
+  }
 
-    for (int i = 0; i < probabilities.length; i++)
-      probabilities[i] = Math.pow(probabilities[i], 1.0 / temperature);
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  private void checkNotFrozen() {
+    Preconditions.checkState(!frozen, "Model is frozen and only supports inference");
+  }
+
+  public MultiLayerNeuralNetwork network() {
+    return model;
+  }
 
-    double sum = Arrays.stream(probabilities).sum();
-    for (int i = 0; i < probabilities.length; i++)
-      probabilities[i] /= sum;
+  public Tokenizer tokenizer() {
+    return tokenizer;
+  }
 
-    double randomValue = Math.random();
-    double cumulativeProbability = 0.0;
+  int n_vocab() {
+    return n_vocab;
+  }
 
-    for (int i = 0; i < probabilities.length; i++) {
-      cumulativeProbability += probabilities[i];
-      if (randomValue <= cumulativeProbability) {
-        return i;
-      }
+  int n_tokens() {
+    return n_tokens;
+  }
+
+  int n_masks() {
+    return n_masks;
+  }
+
+  long seed() {
+    return seed;
+  }
+
+  boolean sparse() {
+    return sparse;
+  }
+
+  Encoder input() {
+    return input;
+  }
+
+  /**
+   * Encodes streamed samples into reusable batch rows, remembering the slots set per row so that only those
+   * are cleared when the row is reused.
+   */
+  private final class StreamEncoder implements Trainer.RowEncoder {
+
+    private final Map<Integer, Scratch[]> previous = new ConcurrentHashMap<>();
+
+    @Override
+    public int inputWidth() {
+      return input.dimension(n_tokens, n_vocab);
+    }
+
+    @Override
+    public int outputWidth() {
+      return n_masks * n_tokens;
     }
 
-    // Should never happen
-    return outputProbabilities.argmax();
+    @Override
+    public void encode(int row, Sample sample, double[] inputRow, double[] outputRow) {
+      Scratch[] last = previous.computeIfAbsent(row, r -> new Scratch[2]);
+      if (last[0] == null || !last[0].row.wraps(inputRow)) last[0] = new Scratch(inputRow);
+      if (last[1] == null || !last[1].row.wraps(outputRow)) last[1] = new Scratch(outputRow);
+
+      int length = last[0].tokenize(tokenizer, sample.masked());
+      input.encode(tokenizer, last[0].ids, length, n_tokens, n_vocab, last[0].row);
+      target(sample.target(), last[1].row, last[1]);
+    }
   }
 
-  public MultiLayerNeuralNetwork network() {
-    return model;
+  /**
+   * Encodes the id samples of a compiled corpus into batch rows, never tokenizing.
+   */
+  private final class CorpusEncoder implements Trainer.BatchEncoder<TokenizedSample> {
+
+    private final Map<Integer, EncodedRow[]> previous = new ConcurrentHashMap<>();
+
+    @Override
+    public int inputWidth() {
+      return input.dimension(n_tokens, n_vocab);
+    }
+
+    @Override
+    public int outputWidth() {
+      return n_masks * n_tokens;
+    }
+
+    @Override
+    public void encode(int row, TokenizedSample sample, double[] inputRow, double[] outputRow) {
+      EncodedRow[] last = previous.computeIfAbsent(row, r -> new EncodedRow[2]);
+      if (last[0] == null || !last[0].wraps(inputRow)) last[0] = EncodedRow.of(inputRow);
+      if (last[1] == null || !last[1].wraps(outputRow)) last[1] = EncodedRow.of(outputRow);
+
+      int[] tokens = sample.tokens();
+      input.encode(tokenizer, tokens, tokens.length, n_tokens, n_vocab, last[0]);
+      target(sample.targets(), last[1]);
+    }
+  }
+
+  /**
+   * Reusable encoding state of one row: the token ids of the last text and the row it was encoded into, which
+   * remembers the slots to clear before the next encoding.
+   */
+  private static final class Scratch {
+
+    private final double[] input;
+    private final EncodedRow row;
+    private int[] ids = new int[32];
+
+    Scratch(double[] input) {
+      this.input = input;
+      this.row = EncodedRow.of(input);
+    }
+
+    /**
+     * Writes the token ids of a text into ids, growing it if the text is longer.
+     *
+     * @return The number of tokens.
+     */
+    int tokenize(Tokenizer tokenizer, String text) {
+      int length = tokenizer.tokenizeIds(text, ids, 0);
+      if (length > ids.length) {
+        ids = new int[Integer.highestOneBit(length) << 1];
+        tokenizer.tokenizeIds(text, ids, 0);
+      }
+      return length;
+    }
   }
 
 }
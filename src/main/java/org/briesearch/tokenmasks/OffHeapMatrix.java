@@ -0,0 +1,132 @@
+package org.briesearch.tokenmasks;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * OffHeapMatrix holds rows of doubles outside the Java heap, in a scratch file mapped into memory. The operating
+ * system pages rows in and out on demand, so the matrix may exceed the heap and, at page cache speed, the physical
+ * memory. The file is split into mapped chunks of whole rows, each below the 2 GB limit of a single mapping, and is
+ * deleted once the matrix is closed.
+ * <p>
+ * Rows are written through {@link #row(int)}, concurrently for distinct rows, and read by copying them into heap rows
+ * through {@link #read(int, double[])}, which is what {@link Trainer} does per batch.
+ *
+ * @author Brissach
+ * @since 17.10.2026 22:58
+ * © token-masks - All Rights Reserved
+ */
+public final class OffHeapMatrix implements AutoCloseable {
+
+  /* the largest mapping, in bytes */
+  private static final long CHUNK = Integer.MAX_VALUE;
+
+  private final Path file;
+  private final int rows;
+  private final int width;
+  private final int rowsPerChunk;
+  private final DoubleBuffer[] chunks;
+  private final ThreadLocal<DoubleBuffer[]> views;
+
+  private OffHeapMatrix(Path file, int rows, int width, int rowsPerChunk, DoubleBuffer[] chunks) {
+    this.file = file;
+    this.rows = rows;
+    this.width = width;
+    this.rowsPerChunk = rowsPerChunk;
+    this.chunks = chunks;
+    this.views = ThreadLocal.withInitial(() -> new DoubleBuffer[chunks.length]);
+  }
+
+  /**
+   * Creates a zeroed matrix in a new scratch file.
+   *
+   * @param directory The directory the scratch file is created in.
+   * @param rows The number of rows.
+   * @param width The number of doubles per row.
+   * @return The matrix.
+   * @throws IOException If the scratch file cannot be created or mapped.
+   */
+  @Nonnull
+  public static OffHeapMatrix create(@Nonnull Path directory, int rows, int width) throws IOException {
+    Preconditions.checkArgument(rows >= 0, "rows must not be negative, got %s", rows);
+    Preconditions.checkArgument(width > 0 && width <= CHUNK / Double.BYTES, "width must be in [1, %s], got %s",
+      CHUNK / Double.BYTES, width);
+
+    int rowsPerChunk = (int) Math.min(Math.max(rows, 1), CHUNK / ((long) width * Double.BYTES));
+    DoubleBuffer[] chunks = new DoubleBuffer[(rows + rowsPerChunk - 1) / rowsPerChunk];
+    Path file = Files.createTempFile(directory, "token-masks-", ".rows");
+    file.toFile().deleteOnExit();
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      for (int c = 0; c < chunks.length; c++) {
+        long first = (long) c * rowsPerChunk;
+        long bytes = Math.min(rowsPerChunk, rows - first) * width * Double.BYTES;
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, first * width * Double.BYTES, bytes);
+        chunks[c] = mapped.order(ByteOrder.nativeOrder()).asDoubleBuffer();
+      }
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    }
+    return new OffHeapMatrix(file, rows, width, rowsPerChunk, chunks);
+  }
+
+  public int rows() {
+    return rows;
+  }
+
+  public int width() {
+    return width;
+  }
+
+  /**
+   * Opens a row for encoding.
+   *
+   * @param row The index of the row.
+   * @return The row as an {@link EncodedRow}, over a view of its chunk that is not shared with other rows.
+   */
+  @Nonnull
+  public EncodedRow row(int row) {
+    Preconditions.checkElementIndex(row, rows);
+    return EncodedRow.of(chunks[row / rowsPerChunk].duplicate(), (row % rowsPerChunk) * width, width);
+  }
+
+  /**
+   * Copies a row into a heap row.
+   *
+   * @param row The index of the row.
+   * @param into The heap row of width doubles.
+   */
+  public void read(int row, @Nonnull double[] into) {
+    Preconditions.checkElementIndex(row, rows);
+    int chunk = row / rowsPerChunk;
+    DoubleBuffer[] own = views.get();
+    if (own[chunk] == null) own[chunk] = chunks[chunk].duplicate();
+
+    DoubleBuffer view = own[chunk];
+    view.position((row % rowsPerChunk) * width);
+    view.get(into, 0, width);
+  }
+
+  /**
+   * Deletes the scratch file. The mapping itself is released once the matrix is garbage collected.
+   */
+  @Override
+  public void close() {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -1,9 +1,9 @@
 package org.briesearch.tokenmasks;
 
+import com.google.common.base.Preconditions;
 import org.briesearch.tokenmasks.tokenizer.Tokenizer;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * OneHotEncoder is an implementation of the Encoder interface that encodes text into a one-hot numerical representation.
@@ -15,17 +15,55 @@ import java.util.Map;
  * © token-masks - All Rights Reserved
  */
 public class OneHotEncoder implements Encoder {
+
+  private final int n_tokens;
+
+  /**
+   * Creates an encoder whose text encodings are as wide as the vocabulary at the time of encoding.
+   */
+  public OneHotEncoder() {
+    this.n_tokens = -1;
+  }
+
+  /**
+   * Creates an encoder whose text encodings always hold n_tokens slots, matching {@link #dimension(int, int)} and the
+   * id encoding of the same n_tokens. Tokens with an index beyond the slots are encoded like unknown tokens.
+   *
+   * @param n_tokens The number of token slots.
+   */
+  public OneHotEncoder(int n_tokens) {
+    Preconditions.checkArgument(n_tokens > 0, "n_tokens must be positive, got %s", n_tokens);
+    this.n_tokens = n_tokens;
+  }
+
   @Override
   public double[] encode(Tokenizer tokenizer, String text, int n_vocab) {
-    double[] vector = new double[tokenizer.asMap().size()];
+    int slots = n_tokens > 0 ? n_tokens : tokenizer.size();
+    double[] vector = new double[slots];
     List<String> tokens = tokenizer.tokenize(text);
-    Map<String, Integer> tokenMap = tokenizer.asMap();
     for (String token : tokens) {
-      if (!tokenMap.containsKey(token)) {
+      int index = PositionalEncoder.slot(tokenizer, tokenizer.indexOf(token), slots);
+      if (index == -1) {
         continue;
       }
-      vector[tokenizer.indexOf(token)] = 1;
+      vector[index] = 1;
     }
     return vector;
   }
+
+  @Override
+  public void encode(Tokenizer tokenizer, int[] ids, int length, int n_tokens, int n_vocab, EncodedRow row) {
+    row.clear();
+    int tokens = Math.min(length, ids.length);
+    for (int i = 0; i < tokens; i++) {
+      int index = PositionalEncoder.slot(tokenizer, ids[i], n_tokens);
+      if (index != -1)
+        row.set(index, 1);
+    }
+  }
+
+  @Override
+  public int dimension(int n_tokens, int n_vocab) {
+    return n_tokens;
+  }
 }
@@ -0,0 +1,82 @@
+package org.briesearch.tokenmasks;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * Parallel splits index ranges into contiguous parts and runs them on an executor.
+ *
+ * @author Brissach
+ * @since 17.10.2026 15:20
+ * © token-masks - All Rights Reserved
+ */
+final class Parallel {
+
+  private Parallel() {
+  }
+
+  /**
+   * Runs a task for every index in [0, size), split into up to threads * 4 contiguous ranges across the executor.
+   * Runs on the calling thread when there is no executor or only a single thread. Blocks until all ranges completed.
+   *
+   * @param executor The executor, may be null.
+   * @param threads The number of threads the work may be spread across.
+   * @param size The number of indices.
+   * @param task The task invoked per index.
+   */
+  static void forEach(ExecutorService executor, int threads, int size, @Nonnull IntConsumer task) {
+    int parts = Math.min(size, threads * 4);
+    if (executor == null || threads <= 1 || parts <= 1) {
+      for (int i = 0; i < size; i++) task.accept(i);
+      return;
+    }
+
+    List<Callable<Void>> ranges = new ArrayList<>(parts);
+    for (int part = 0; part < parts; part++) {
+      int from = (int) ((long) size * part / parts);
+      int to = (int) ((long) size * (part + 1) / parts);
+      ranges.add(() -> {
+        for (int i = from; i < to; i++) task.accept(i);
+        return null;
+      });
+    }
+
+    for (Future<Void> future : invokeAll(executor, ranges))
+      await(future);
+  }
+
+  private static <T> List<Future<T>> invokeAll(ExecutorService executor, List<Callable<T>> tasks) {
+    try {
+      return executor.invokeAll(tasks);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for parallel tasks", e);
+    }
+  }
+
+  /**
+   * Waits for a task and rethrows its failure unchecked.
+   *
+   * @param future The task.
+   * @return The result of the task.
+   */
+  static <T> T await(@Nonnull Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for parallel tasks", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw new IllegalStateException(cause);
+    }
+  }
+}
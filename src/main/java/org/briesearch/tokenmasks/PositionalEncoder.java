@@ -1,6 +1,5 @@
 package org.briesearch.tokenmasks;
 
-import io.arctis.aurora.algebraic.ContextVector;
 import org.briesearch.tokenmasks.tokenizer.Tokenizer;
 
 import java.util.List;
@@ -17,29 +16,96 @@ import java.util.List;
 public class PositionalEncoder implements Encoder {
   @Override
   public double[] encode(Tokenizer tokenizer, String text, int n_vocab) {
-    List<String> tokens = tokenizer.tokenize(text);
-    int vocabSize = tokenizer.asMap().size();
-    int featureSize = vocabSize + 1; // vocab size + 1 position dimension
+    return encodeSparse(tokenizer, text, n_vocab).densify();
+  }
+
+  /**
+   * Encodes the input text into its sparse form. Every position holds at most two non-zero slots
+   * (the token index and the position dimension), so the result scales with the sentence length
+   * instead of the vocabulary size. Positions beyond n_vocab are dropped.
+   *
+   * @param tokenizer The tokenizer used to tokenize the input text and map tokens to indices.
+   * @param text The input text to be encoded.
+   * @param n_vocab The maximum number of positions to encode.
+   * @return The sparse vector with a dimension of n_vocab * (vocabulary size + 1).
+   */
+  public SparseVector encodeSparse(Tokenizer tokenizer, String text, int n_vocab) {
+    return encodeSparse(tokenizer, tokenizer.tokenize(text), n_vocab);
+  }
+
+  /**
+   * Encodes already tokenized text into its sparse form, see {@link #encodeSparse(Tokenizer, String, int)}.
+   *
+   * @param tokenizer The tokenizer used to map tokens to indices.
+   * @param tokens The tokens of the input text.
+   * @param n_vocab The maximum number of positions to encode.
+   * @return The sparse vector with a dimension of n_vocab * (vocabulary size + 1).
+   */
+  public SparseVector encodeSparse(Tokenizer tokenizer, List<String> tokens, int n_vocab) {
+    return encodeSparse(tokenizer, tokens, n_vocab, tokenizer.size());
+  }
+
+  /**
+   * Encodes already tokenized text into a layout of a fixed number of token slots per position, independent of the
+   * current vocabulary size. Tokens with an index beyond the slots are encoded like unknown tokens.
+   *
+   * @param tokenizer The tokenizer used to map tokens to indices.
+   * @param tokens The tokens of the input text.
+   * @param n_vocab The maximum number of positions to encode.
+   * @param n_tokens The number of token slots per position, at least the vocabulary size the model was built with.
+   * @return The sparse vector with a dimension of n_vocab * (n_tokens + 1).
+   */
+  public SparseVector encodeSparse(Tokenizer tokenizer, List<String> tokens, int n_vocab, int n_tokens) {
+    int featureSize = n_tokens + 1; // token slots + 1 position dimension
     int maxSize = n_vocab * featureSize; // total size of the flattened vector
+    int positions = Math.min(tokens.size(), n_vocab);
 
-    // flat vector for the sequence
-    double[] vector = new double[tokens.size() * featureSize];
+    SparseVector vector = new SparseVector(maxSize, positions * 2);
 
-    for (int i = 0; i < tokens.size(); i++) {
-      String token = tokens.get(i);
-      int tokenIndex = tokenizer.indexOf(token);
+    for (int i = 0; i < positions; i++) {
+      int tokenIndex = slot(tokenizer, tokenizer.indexOf(tokens.get(i)), n_tokens);
 
       // one-hot for token index
       if (tokenIndex != -1) {
-        vector[i * featureSize + tokenIndex] = 1;
+        vector.put(i * featureSize + tokenIndex, 1);
       }
 
       // positional encoding as the last dimension
-      vector[(i + 1) * featureSize - 1] = (double) i / tokens.size();
+      vector.put((i + 1) * featureSize - 1, (double) i / tokens.size());
     }
 
-    ContextVector ctx = ContextVector.vector(vector);
-    return ctx.padSequence(maxSize).transform();
+    return vector;
+  }
+
+  /**
+   * Encodes token ids into the same layout as {@link #encodeSparse(Tokenizer, List, int, int)}, setting at most two
+   * slots per position.
+   */
+  @Override
+  public void encode(Tokenizer tokenizer, int[] ids, int length, int n_tokens, int n_vocab, EncodedRow row) {
+    row.clear();
+    int featureSize = n_tokens + 1;
+    int positions = Math.min(Math.min(length, ids.length), n_vocab);
+    for (int i = 0; i < positions; i++) {
+      int tokenIndex = slot(tokenizer, ids[i], n_tokens);
+      if (tokenIndex != -1)
+        row.set(i * featureSize + tokenIndex, 1);
+      row.set((i + 1) * featureSize - 1, (double) i / length);
+    }
+  }
+
+  /**
+   * Maps a token index to its slot in a layout of n_tokens token slots.
+   *
+   * @param tokenizer The tokenizer providing the unknown token.
+   * @param index The index of the token, -1 if it is unknown.
+   * @param n_tokens The number of token slots.
+   * @return The slot, or -1 if the token has none.
+   */
+  static int slot(Tokenizer tokenizer, int index, int n_tokens) {
+    if (index >= 0 && index < n_tokens) return index;
+    int unknown = tokenizer.unknownIndex();
+    return unknown < n_tokens ? unknown : -1;
   }
 
 }
@@ -0,0 +1,280 @@
+package org.briesearch.tokenmasks;
+
+import com.google.common.base.Preconditions;
+import org.briesearch.tokenmasks.tokenizer.Tokenizer;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * PredictionCache keeps the network outputs of recently predicted texts, keyed by their token id sequence. Texts that
+ * tokenize to the same ids are fed the same input, so they share one entry regardless of casing or unknown words.
+ * <p>
+ * Eviction is a segmented LRU: new entries enter a probation segment and are promoted to the protected segment
+ * (up to 80% of the capacity) on their second hit, so a burst of one-off texts cannot flush the frequently requested
+ * ones.
+ * Entries are spread across independently locked shards by the hash of their ids.
+ * <p>
+ * Every lookup carries a stamp of the model generation and the vocabulary size. Both only grow, so a shard that sees
+ * a newer stamp drops all its entries, and outputs computed under an older stamp are never stored.
+ *
+ * @author Brissach
+ * @since 17.10.2026 21:05
+ * © token-masks - All Rights Reserved
+ */
+public final class PredictionCache {
+
+  /* entries per shard before the cache is split further */
+  private static final int SHARD_CAPACITY = 64;
+  private static final int MAX_SHARDS = 16;
+
+  private final int capacity;
+  private final Shard[] shards;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final ThreadLocal<int[]> scratch = ThreadLocal.withInitial(() -> new int[64]);
+
+  /**
+   * @param capacity The maximum number of cached outputs.
+   */
+  public PredictionCache(int capacity) {
+    Preconditions.checkArgument(capacity > 0, "capacity must be positive, got %s", capacity);
+    this.capacity = capacity;
+    int count = Math.min(MAX_SHARDS, Integer.highestOneBit(Math.max(1, capacity / SHARD_CAPACITY)));
+    this.shards = new Shard[count];
+    for (int i = 0; i < count; i++)
+      shards[i] = new Shard((capacity + count - 1) / count);
+  }
+
+  /**
+   * Returns the cached output of a text, computing and caching it on a miss.
+   *
+   * @param tokenizer The tokenizer mapping the text to its ids.
+   * @param text The input text.
+   * @param generation The generation of the model weights, increased whenever they change.
+   * @param predictor Computes the output of a text on a miss.
+   * @return The output, shared with the cache and must not be modified.
+   */
+  @Nonnull
+  double[] get(@Nonnull Tokenizer tokenizer, @Nonnull String text, int generation,
+               @Nonnull Function<String, double[]> predictor) {
+    int[] ids = scratch.get();
+    int length = tokenizer.tokenizeIds(text, ids, 0);
+    if (length > ids.length) {
+      ids = new int[Integer.highestOneBit(length) << 1];
+      scratch.set(ids);
+      tokenizer.tokenizeIds(text, ids, 0);
+    }
+
+    int unknown = tokenizer.unknownIndex();
+    for (int i = 0; i < length; i++)
+      if (ids[i] < 0) ids[i] = unknown;
+
+    // read after tokenizing, which may register tokens
+    long stamp = (long) generation << 32 | tokenizer.size();
+    Key key = new Key(ids, length);
+    Shard shard = shards[key.hash & (shards.length - 1)];
+
+    double[] output = shard.get(key, stamp);
+    if (output != null) {
+      hits.increment();
+      return output;
+    }
+
+    misses.increment();
+    key = key.copy();
+    output = predictor.apply(text);
+    shard.put(key, output, stamp);
+    return output;
+  }
+
+  /**
+   * Drops all cached outputs.
+   */
+  public void invalidate() {
+    for (Shard shard : shards) {
+      synchronized (shard) {
+        shard.clear();
+      }
+    }
+  }
+
+  public long hits() {
+    return hits.sum();
+  }
+
+  public long misses() {
+    return misses.sum();
+  }
+
+  public long evictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * @return The share of lookups served from the cache, 0 before the first lookup.
+   */
+  public double hitRate() {
+    long hits = hits(), total = hits + misses();
+    return total == 0 ? 0.0 : (double) hits / total;
+  }
+
+  public int size() {
+    int size = 0;
+    for (Shard shard : shards) {
+      synchronized (shard) {
+        size += shard.probation.size() + shard.protect.size();
+      }
+    }
+    return size;
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  private final class Shard {
+
+    private final int capacity;
+    private final int probationCapacity;
+    private final int protectCapacity;
+    private final LinkedHashMap<Key, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Key, Entry> protect = new LinkedHashMap<>(16, 0.75f, true);
+    private long stamp;
+
+    Shard(int capacity) {
+      this.capacity = capacity;
+      this.protectCapacity = capacity * 4 / 5;
+      this.probationCapacity = Math.max(1, capacity - protectCapacity);
+    }
+
+    synchronized double[] get(Key key, long stamp) {
+      if (!current(stamp)) return null;
+
+      Entry entry = protect.get(key);
+      if (entry != null) return entry.output;
+
+      entry = probation.remove(key);
+      if (entry == null) return null;
+
+      // the lookup key wraps the scratch ids, segments only hold the owned key of the entry
+      if (protectCapacity > 0) {
+        protect.put(entry.key, entry);
+        if (protect.size() > protectCapacity) {
+          Entry demoted = eldest(protect);
+          probation.put(demoted.key, demoted);
+          trim();
+        }
+      } else {
+        probation.put(entry.key, entry);
+      }
+      return entry.output;
+    }
+
+    synchronized void put(Key key, double[] output, long stamp) {
+      if (!current(stamp) || protect.containsKey(key)) return;
+      probation.put(key, new Entry(key, output));
+      trim();
+    }
+
+    /**
+     * Adopts a newer stamp by dropping all entries. Returns false for an outdated stamp.
+     */
+    private boolean current(long stamp) {
+      if (stamp > this.stamp) {
+        clear();
+        this.stamp = stamp;
+      }
+      return stamp == this.stamp;
+    }
+
+    /**
+     * Evicts from probation while the shard is over capacity. Probation may borrow the room the protected
+     * segment does not use yet, so a working set that fits the cache is not evicted before its second hit.
+     */
+    private void trim() {
+      while (probation.size() > probationCapacity && probation.size() + protect.size() > capacity) {
+        eldest(probation);
+        evictions.increment();
+      }
+    }
+
+    private Entry eldest(LinkedHashMap<Key, Entry> segment) {
+      Iterator<Entry> iterator = segment.values().iterator();
+      Entry eldest = iterator.next();
+      iterator.remove();
+      return eldest;
+    }
+
+    void clear() {
+      probation.clear();
+      protect.clear();
+    }
+  }
+
+  private static final class Entry {
+
+    private final Key key;
+    private final double[] output;
+
+    Entry(Key key, double[] output) {
+      this.key = key;
+      this.output = output;
+    }
+  }
+
+  /**
+   * A token id sequence, compared by content.
+   */
+  private static final class Key {
+
+    private final int[] ids;
+    private final int length;
+    private final int hash;
+
+    Key(int[] ids, int length) {
+      this(ids, length, hash(ids, length));
+    }
+
+    private Key(int[] ids, int length, int hash) {
+      this.ids = ids;
+      this.length = length;
+      this.hash = hash;
+    }
+
+    /**
+     * @return The key holding its own copy of the ids, detached from the scratch array.
+     */
+    Key copy() {
+      return new Key(Arrays.copyOf(ids, length), length, hash);
+    }
+
+    private static int hash(int[] ids, int length) {
+      int hash = 1;
+      for (int i = 0; i < length; i++)
+        hash = 31 * hash + ids[i];
+      return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key other = (Key) o;
+      if (hash != other.hash || length != other.length) return false;
+      for (int i = 0; i < length; i++)
+        if (ids[i] != other.ids[i]) return false;
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package org.briesearch.tokenmasks;
+
+import org.briesearch.tokenmasks.tokenizer.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ReplayTokenizer hands already tokenized ids to encoders that only encode text. Every tokenization yields the decoded
+ * tokens of the ids, and lookups are limited to a layout of n_tokens token slots: tokens with an index beyond the slots
+ * are unknown, as are ids of -1, which are decoded to {@link Tokenizer#UNKNOWN}. The size reported is n_tokens, so
+ * encoders sizing their vectors by the vocabulary produce the layout of the slots. Anything else is delegated.
+ *
+ * @author Brissach
+ * @since 17.10.2026 15:05
+ * © token-masks - All Rights Reserved
+ */
+final class ReplayTokenizer implements Tokenizer {
+
+  private final Tokenizer delegate;
+  private final int n_tokens;
+  private final List<String> tokens;
+
+  /**
+   * @param delegate The tokenizer the ids were produced by.
+   * @param ids The token indices, -1 for unknown tokens.
+   * @param length The number of ids to decode.
+   * @param n_tokens The number of token slots.
+   */
+  ReplayTokenizer(Tokenizer delegate, int[] ids, int length, int n_tokens) {
+    this.delegate = delegate;
+    this.n_tokens = n_tokens;
+    this.tokens = new ArrayList<>(length);
+    for (int i = 0; i < length; i++)
+      tokens.add(ids[i] == -1 ? UNKNOWN : delegate.wordOf(ids[i]));
+  }
+
+  /**
+   * @return The decoded tokens joined by spaces.
+   */
+  String text() {
+    return String.join(" ", tokens);
+  }
+
+  @Override
+  public List<String> tokenize(String text) {
+    return new ArrayList<>(tokens);
+  }
+
+  @Override
+  public int indexOf(String token) {
+    int index = delegate.indexOf(token);
+    return index < n_tokens ? index : -1;
+  }
+
+  @Override
+  public int unknownIndex() {
+    int unknown = delegate.unknownIndex();
+    return unknown < n_tokens ? unknown : -1;
+  }
+
+  @Override
+  public String wordOf(int index) {
+    return delegate.wordOf(index);
+  }
+
+  @Override
+  public void fit(String token) {
+    throw new UnsupportedOperationException("Replayed tokens cannot be fitted");
+  }
+
+  @Override
+  public long countTotalCharacters() {
+    return delegate.countTotalCharacters();
+  }
+
+  @Override
+  public long countCharacters() {
+    return delegate.countCharacters();
+  }
+
+  @Override
+  public int size() {
+    return n_tokens;
+  }
+
+  @Override
+  public Map<String, Integer> asMap() {
+    return delegate.asMap();
+  }
+
+  @Override
+  public boolean isFrozen() {
+    return true;
+  }
+}
@@ -0,0 +1,63 @@
+package org.briesearch.tokenmasks;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+
+/**
+ * Sample is a single training pair of a masked sentence and the target that replaces its mask.
+ * A sentence with several masks holds one whitespace separated target word per mask, in order.
+ *
+ * @author Brissach
+ * @since 17.10.2026 14:02
+ * © token-masks - All Rights Reserved
+ */
+public final class Sample {
+
+  private final String masked;
+  private final String target;
+
+  public Sample(@Nonnull String masked, @Nonnull String target) {
+    this.masked = masked;
+    this.target = target;
+  }
+
+  @Nonnull
+  public String masked() {
+    return masked;
+  }
+
+  @Nonnull
+  public String target() {
+    return target;
+  }
+
+  /**
+   * @param mask The mask token.
+   * @return The sentence with the mask replaced by the target. With several masks, the whitespace separated
+   * words of the target fill the masks in order.
+   */
+  @Nonnull
+  public String unmasked(@Nonnull String mask) {
+    if (SentenceMasker.count(masked, mask) <= 1)
+      return masked.replace(mask, target);
+    return SentenceMasker.fill(masked, mask, target.trim().split("\\s+"));
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof Sample)) return false;
+    Sample sample = (Sample) o;
+    return masked.equals(sample.masked) && target.equals(sample.target);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(masked, target);
+  }
+
+  @Override
+  public String toString() {
+    return masked + " -> " + target;
+  }
+}
@@ -0,0 +1,93 @@
+package org.briesearch.tokenmasks;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SampleSource is a re-readable stream of training samples. Every call to {@link #iterator()} starts a new pass
+ * over the samples, which allows training for multiple epochs without holding the corpus in memory.
+ * Cursors release their resources once exhausted, or when closed explicitly.
+ *
+ * @author Brissach
+ * @since 17.10.2026 14:05
+ * © token-masks - All Rights Reserved
+ */
+public interface SampleSource extends Iterable<Sample> {
+
+  /**
+   * Opens a new pass over the samples.
+   *
+   * @return A cursor positioned before the first sample.
+   */
+  @Nonnull
+  @Override
+  Cursor iterator();
+
+  /**
+   * Creates a source over a line-delimited file, where every line holds the masked sentence and its target
+   * separated by a tab. The file is memory-mapped and decoded lazily line by line on every pass.
+   *
+   * @param file The UTF-8 encoded sample file.
+   * @return The source reading from the file.
+   */
+  @Nonnull
+  static SampleSource lines(@Nonnull Path file) {
+    return new LineSampleSource(file);
+  }
+
+  /**
+   * Creates a source over samples held in memory. Duplicate masked sentences with different targets are kept.
+   *
+   * @param samples The samples.
+   * @return The source iterating the samples in order.
+   */
+  @Nonnull
+  static SampleSource of(@Nonnull Collection<Sample> samples) {
+    List<Sample> copy = Collections.unmodifiableList(new ArrayList<>(samples));
+    return () -> {
+      Iterator<Sample> iterator = copy.iterator();
+      return new Cursor() {
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public Sample next() {
+          return iterator.next();
+        }
+
+        @Override
+        public void close() {
+        }
+      };
+    };
+  }
+
+  /**
+   * Creates a source over a map of masked sentences and their targets.
+   *
+   * @param samples The samples as masked sentence to target.
+   * @return The source iterating the map entries.
+   */
+  @Nonnull
+  static SampleSource of(@Nonnull Map<String, String> samples) {
+    List<Sample> list = new ArrayList<>(samples.size());
+    samples.forEach((masked, target) -> list.add(new Sample(masked, target)));
+    return of(list);
+  }
+
+  /**
+   * A single pass over a sample source.
+   */
+  interface Cursor extends Iterator<Sample>, AutoCloseable {
+    @Override
+    void close();
+  }
+}
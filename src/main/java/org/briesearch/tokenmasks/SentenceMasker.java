@@ -1,12 +1,15 @@
 package org.briesearch.tokenmasks;
 
+import com.google.common.base.Preconditions;
+
 import javax.annotation.Nonnull;
+import java.util.Arrays;
 import java.util.Random;
 
 /**
- * SentenceMasker is a utility class that performs random masking of a single token within a sentence.
- * It replaces a randomly chosen token in the input sentence with a predefined mask token. This is typically used
- * for training models that need to predict or reconstruct the masked token.
+ * SentenceMasker is a utility class that performs random masking of tokens within a sentence.
+ * It replaces randomly chosen tokens in the input sentence with a predefined mask token. This is typically used
+ * for training models that need to predict or reconstruct the masked tokens.
  *
  * @author Brissach
  * @since 10.01.2025 05:44
@@ -31,12 +34,106 @@ public class SentenceMasker {
    */
   @Nonnull
   public String[] mask(@Nonnull String text) {
+    return mask(text, 1);
+  }
+
+  /**
+   * Masks several distinct, randomly selected tokens in the input sentence with the predefined mask token.
+   *
+   * @param text The input sentence to be masked.
+   * @param count The number of tokens to mask, capped at the number of tokens in the sentence.
+   * @return An array containing two elements: the masked sentence and the replaced tokens, joined by a space
+   * in the order they appear in the sentence.
+   */
+  @Nonnull
+  public String[] mask(@Nonnull String text, int count) {
+    Preconditions.checkArgument(count > 0, "count must be positive, got %s", count);
     String[] tokens = text.split(" ");
-    int index = random.nextInt(tokens.length);
-    String maskedToken = tokens[index];
-    tokens[index] = maskToken;
+    count = Math.min(count, tokens.length);
+    int[] positions = positions(tokens.length, count);
+
+    String[] maskedTokens = new String[count];
+    for (int i = 0; i < count; i++) {
+      maskedTokens[i] = tokens[positions[i]];
+      tokens[positions[i]] = maskToken;
+    }
     String masked = String.join(" ", tokens);
-    return new String[]{masked, maskedToken};
+    return new String[]{masked, String.join(" ", maskedTokens)};
+  }
+
+  /**
+   * Masks several distinct, randomly selected tokens of an already tokenized sentence in place, drawing the positions
+   * like {@link #mask(String, int)} does for a sentence of as many words.
+   *
+   * @param ids The token ids of the sentence, the masked positions are replaced by the mask id.
+   * @param count The number of tokens to mask, capped at the number of tokens in the sentence.
+   * @param maskId The token id of the mask token.
+   * @return The replaced token ids in the order they appear in the sentence.
+   */
+  @Nonnull
+  public int[] mask(@Nonnull int[] ids, int count, int maskId) {
+    Preconditions.checkArgument(count > 0, "count must be positive, got %s", count);
+    count = Math.min(count, ids.length);
+    int[] positions = positions(ids.length, count);
+
+    int[] masked = new int[count];
+    for (int i = 0; i < count; i++) {
+      masked[i] = ids[positions[i]];
+      ids[positions[i]] = maskId;
+    }
+    return masked;
+  }
+
+  /**
+   * Draws distinct positions through a partial Fisher-Yates shuffle, a single mask draws exactly like before.
+   *
+   * @return The positions, the first count of them drawn and sorted.
+   */
+  private int[] positions(int length, int count) {
+    int[] positions = new int[length];
+    for (int i = 0; i < positions.length; i++) positions[i] = i;
+    for (int i = 0; i < count; i++) {
+      int pick = i + random.nextInt(positions.length - i);
+      int swap = positions[i];
+      positions[i] = positions[pick];
+      positions[pick] = swap;
+    }
+    Arrays.sort(positions, 0, count);
+    return positions;
+  }
+
+  /**
+   * @param text The text.
+   * @param mask The mask token.
+   * @return The number of occurrences of the mask token in the text.
+   */
+  public static int count(@Nonnull String text, @Nonnull String mask) {
+    int count = 0;
+    for (int at = text.indexOf(mask); at != -1; at = text.indexOf(mask, at + mask.length()))
+      count++;
+    return count;
+  }
+
+  /**
+   * Replaces the occurrences of the mask token in order. Occurrences without a fill are kept.
+   *
+   * @param text The masked text.
+   * @param mask The mask token.
+   * @param fills The replacement of every occurrence, null entries keep the occurrence.
+   * @return The filled text.
+   */
+  @Nonnull
+  public static String fill(@Nonnull String text, @Nonnull String mask, @Nonnull String... fills) {
+    StringBuilder filled = new StringBuilder(text.length());
+    int previous = 0;
+    int occurrence = 0;
+    for (int at = text.indexOf(mask); at != -1; at = text.indexOf(mask, at + mask.length()), occurrence++) {
+      filled.append(text, previous, at);
+      String fill = occurrence < fills.length ? fills[occurrence] : null;
+      filled.append(fill != null ? fill : mask);
+      previous = at + mask.length();
+    }
+    return filled.append(text, previous, text.length()).toString();
   }
 
 }
@@ -0,0 +1,108 @@
+package org.briesearch.tokenmasks;
+
+import org.briesearch.tokenmasks.sampling.Candidates;
+
+import java.util.Arrays;
+
+/**
+ * Slots decodes the network output of several masks. The output layer is a single softmax over all
+ * n_masks * n_tokens units, aurora offers no normalization per block of units, so the block of every slot carries
+ * its own share of the probability mass instead of summing up to 1. Blocks are therefore renormalized over the fitted
+ * tokens before slots are compared with each other or their tokens are combined.
+ *
+ * @author Brissach
+ * @since 17.10.2026 12:05
+ * © token-masks - All Rights Reserved
+ */
+final class Slots {
+
+  private Slots() {
+  }
+
+  /**
+   * @param output The network output of n_masks blocks of n_tokens probabilities.
+   * @param slot The slot.
+   * @param n_tokens The number of token slots per block.
+   * @param tokens The number of fitted tokens, at most n_tokens.
+   * @return The probabilities of the fitted tokens of the slot, renormalized to sum up to 1, all zeros if the block
+   * carries no mass.
+   */
+  static double[] probabilities(double[] output, int slot, int n_tokens, int tokens) {
+    int from = slot * n_tokens;
+    double[] probabilities = Arrays.copyOfRange(output, from, from + tokens);
+    double sum = 0.0;
+    for (double probability : probabilities)
+      sum += probability;
+    if (sum > 0.0)
+      for (int i = 0; i < probabilities.length; i++)
+        probabilities[i] /= sum;
+    return probabilities;
+  }
+
+  /**
+   * Finds the slot whose most probable token has the highest renormalized probability.
+   *
+   * @param output The network output of n_masks blocks of n_tokens probabilities.
+   * @param slots The number of leading slots to consider.
+   * @param n_tokens The number of token slots per block.
+   * @param tokens The number of fitted tokens, at most n_tokens.
+   * @return The most confident slot, 0 if no slot carries mass.
+   */
+  static int mostConfident(double[] output, int slots, int n_tokens, int tokens) {
+    int best = 0;
+    double confidence = -1.0;
+    for (int slot = 0; slot < slots; slot++) {
+      double max = 0.0, sum = 0.0;
+      for (int i = slot * n_tokens; i < slot * n_tokens + tokens; i++) {
+        max = Math.max(max, output[i]);
+        sum += output[i];
+      }
+      if (sum > 0.0 && max / sum > confidence) {
+        confidence = max / sum;
+        best = slot;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Ranks combinations of one token per slot by their joint probability, the product of the renormalized slot
+   * probabilities. The combinations are built slot by slot, keeping the k best partial combinations, which is exact
+   * as every slot contributes an independent factor.
+   *
+   * @param probabilities The renormalized probabilities per slot, see {@link #probabilities(double[], int, int, int)}.
+   * @param k The number of combinations.
+   * @return Up to k combinations holding one token index per slot, from the most to the least probable.
+   */
+  static int[][] top(double[][] probabilities, int k) {
+    int[][] beam = {new int[0]};
+    double[] scores = {1.0};
+
+    for (int slot = 0; slot < probabilities.length; slot++) {
+      int[] candidates = new int[Math.min(k, probabilities[slot].length)];
+      int count = Candidates.top(probabilities[slot], k, candidates);
+
+      int size = beam.length * count;
+      int[][] extended = new int[size][];
+      double[] extendedScores = new double[size];
+      int n = 0;
+      for (int b = 0; b < beam.length; b++) {
+        for (int c = 0; c < count; c++) {
+          extended[n] = Arrays.copyOf(beam[b], slot + 1);
+          extended[n][slot] = candidates[c];
+          extendedScores[n++] = scores[b] * probabilities[slot][candidates[c]];
+        }
+      }
+
+      int[] order = new int[Math.min(k, size)];
+      int kept = Candidates.top(extendedScores, k, order);
+      beam = new int[kept][];
+      scores = new double[kept];
+      for (int i = 0; i < kept; i++) {
+        beam[i] = extended[order[i]];
+        scores[i] = extendedScores[order[i]];
+      }
+    }
+    return beam;
+  }
+}
@@ -0,0 +1,91 @@
+package org.briesearch.tokenmasks;
+
+import java.util.Arrays;
+
+/**
+ * SparseVector is an index/value representation of an encoded input, holding only the non-zero slots
+ * of a vector with a fixed dimension. It is used to keep encoded samples proportional to the sentence length
+ * instead of the vocabulary size, and to scatter them into dense buffers right before they reach the network.
+ *
+ * @author Brissach
+ * @since 17.10.2026 10:04
+ * © token-masks - All Rights Reserved
+ */
+public class SparseVector {
+
+  private final int dimension;
+  private int[] indices;
+  private double[] values;
+  private int size;
+
+  public SparseVector(int dimension, int capacity) {
+    this.dimension = dimension;
+    this.indices = new int[Math.max(capacity, 1)];
+    this.values = new double[Math.max(capacity, 1)];
+  }
+
+  /**
+   * Appends a non-zero entry. Zero values are ignored.
+   *
+   * @param index The slot of the entry within the dense vector.
+   * @param value The value of the entry.
+   */
+  public void put(int index, double value) {
+    if (index < 0 || index >= dimension)
+      throw new IndexOutOfBoundsException("Index: " + index + ", Dimension: " + dimension);
+    if (value == 0.0) return;
+    if (size == indices.length) {
+      indices = Arrays.copyOf(indices, size << 1);
+      values = Arrays.copyOf(values, size << 1);
+    }
+    indices[size] = index;
+    values[size] = value;
+    size++;
+  }
+
+  /**
+   * Writes the non-zero entries into a dense buffer. The buffer is expected to be zeroed in every other slot,
+   * which holds when it was previously cleared through {@link #clear(double[])}.
+   *
+   * @param dense The dense buffer of at least {@link #dimension()} slots.
+   */
+  public void scatter(double[] dense) {
+    for (int i = 0; i < size; i++)
+      dense[indices[i]] = values[i];
+  }
+
+  /**
+   * Resets the slots of a dense buffer previously written through {@link #scatter(double[])}.
+   *
+   * @param dense The dense buffer to clear.
+   */
+  public void clear(double[] dense) {
+    for (int i = 0; i < size; i++)
+      dense[indices[i]] = 0.0;
+  }
+
+  /**
+   * @return A newly allocated dense copy of this vector.
+   */
+  public double[] densify() {
+    double[] dense = new double[dimension];
+    scatter(dense);
+    return dense;
+  }
+
+  public int dimension() {
+    return dimension;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int index(int i) {
+    return indices[i];
+  }
+
+  public double value(int i) {
+    return values[i];
+  }
+}
@@ -0,0 +1,62 @@
+package org.briesearch.tokenmasks;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * TokenizedSample is a training sample in token id form: the token ids of the masked sentence, holding the id of the
+ * MASK token at every masked position, and the ids of the masked tokens in sentence order. Unknown tokens are -1.
+ * Samples of a {@link CompiledCorpus} are masked on ids like this, without ever creating strings.
+ *
+ * @author Brissach
+ * @since 17.10.2026 23:20
+ * © token-masks - All Rights Reserved
+ */
+public final class TokenizedSample {
+
+  private final int[] tokens;
+  private final int[] targets;
+
+  /**
+   * @param tokens The token ids of the masked sentence, not copied.
+   * @param targets The token ids of the masked tokens, not copied.
+   */
+  public TokenizedSample(@Nonnull int[] tokens, @Nonnull int[] targets) {
+    this.tokens = tokens;
+    this.targets = targets;
+  }
+
+  /**
+   * @return The token ids of the masked sentence, must not be modified.
+   */
+  @Nonnull
+  public int[] tokens() {
+    return tokens;
+  }
+
+  /**
+   * @return The token ids of the masked tokens, must not be modified.
+   */
+  @Nonnull
+  public int[] targets() {
+    return targets;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof TokenizedSample)) return false;
+    TokenizedSample sample = (TokenizedSample) o;
+    return Arrays.equals(tokens, sample.tokens) && Arrays.equals(targets, sample.targets);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(tokens) + Arrays.hashCode(targets);
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(tokens) + " -> " + Arrays.toString(targets);
+  }
+}
@@ -0,0 +1,696 @@
+package org.briesearch.tokenmasks;
+
+import com.google.common.base.Preconditions;
+import io.arctis.aurora.ops.Kwargs;
+import io.arctis.aurora_deep.MultiLayerNeuralNetwork;
+import org.briesearch.tokenmasks.metrics.Metrics;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Trainer runs the training loop of a network over encoded samples. Samples are visited in mini-batches
+ * of batch_size rows (the whole set when 0), optionally reshuffled every epoch, and the loss over the full
+ * set is only evaluated every eval_every steps (once per epoch when 0), and at the end of every epoch that ended
+ * without an evaluation, so the schedule never acts on the loss of an earlier epoch. Work that can be split across
+ * samples, such as encoding, runs on the configured executor.
+ * <p>
+ * Targets may be passed as class ids or sparse rows instead of dense rows, in which case their dense form only
+ * exists for the rows of the current batch, written into reusable rows and cleared again after the step, and batches
+ * hold 64 rows unless batch_size is set. Likewise, inputs held in an {@link OffHeapMatrix} are copied onto the heap one
+ * batch at a time. The output layer itself stays a full softmax: aurora trains dense rows of the whole output width,
+ * so sampled or hierarchical softmax cannot be applied from here.
+ * <p>
+ * Samples may also be streamed from a {@link SampleSource}, in which case every epoch is a new pass over the source
+ * and samples are encoded batch by batch into reusable rows, keeping memory bounded by the batch size. With a
+ * pipeline_depth of 2 or more (2 by default), a producer thread reads and encodes the next batches into a ring of
+ * preallocated batches while the current one trains; 1 encodes every batch on the training thread.
+ * <p>
+ * Training stops once the loss is below the preference value, or earlier through the schedule parameters:
+ * <ul>
+ *   <li>max_epochs caps the number of epochs (0 for no cap).</li>
+ *   <li>validation_split holds out this share of the samples, spread evenly across the set, from training.</li>
+ *   <li>validate_every sets the epochs between validations (1). The validation loss is monitored, or the training
+ *   loss without a validation split.</li>
+ *   <li>patience stops after this many validations without improvement (0 to disable).</li>
+ *   <li>lr_decay multiplies the learning rate after every epoch (1.0 keeps it constant).</li>
+ *   <li>restore_best snapshots the network whenever the monitored loss improves and restores the best snapshot once
+ *   training stops, see {@link #network()}.</li>
+ * </ul>
+ *
+ * @author Brissach
+ * @since 17.10.2026 12:48
+ * © token-masks - All Rights Reserved
+ */
+public class Trainer {
+
+  /* Rows per network call for sparse, off-heap and streamed samples and sparse or class id targets unless batch_size is set */
+  private static final int DEFAULT_BATCH = 64;
+
+  private MultiLayerNeuralNetwork network;
+  private final ExecutorService executor;
+  private final int threads;
+  private final int batchSize;
+  private final boolean shuffle;
+  private final int evalEvery;
+  private final Random random;
+  private final int maxEpochs;
+  private final double validationSplit;
+  private final int validateEvery;
+  private final int patience;
+  private final double lrDecay;
+  private final boolean restoreBest;
+  private final int pipelineDepth;
+  private Metrics metrics = Metrics.NONE;
+
+  /**
+   * @param network The network to be trained.
+   * @param executor The executor parallel work is submitted to, or null to run everything on the calling thread.
+   * @param kwargs Training parameters (batch_size, shuffle, eval_every, threads, seed, max_epochs, validation_split,
+   *               validate_every, patience, lr_decay, restore_best, pipeline_depth).
+   */
+  public Trainer(@Nonnull MultiLayerNeuralNetwork network, ExecutorService executor, @Nonnull Kwargs kwargs) {
+    this.network = network;
+    this.executor = executor;
+    this.threads = Math.max(1, kwargs.get("threads", Runtime.getRuntime().availableProcessors()));
+    this.batchSize = kwargs.get("batch_size", 0);
+    this.shuffle = kwargs.get("shuffle", true);
+    this.evalEvery = kwargs.get("eval_every", 0);
+    this.random = new Random(kwargs.get("seed", 24L));
+    this.maxEpochs = kwargs.get("max_epochs", 0);
+    this.validationSplit = kwargs.get("validation_split", 0.0);
+    this.validateEvery = kwargs.get("validate_every", 1);
+    this.patience = kwargs.get("patience", 0);
+    this.lrDecay = kwargs.get("lr_decay", 1.0);
+    this.restoreBest = kwargs.get("restore_best", false);
+    this.pipelineDepth = kwargs.get("pipeline_depth", 2);
+
+    Preconditions.checkArgument(maxEpochs >= 0, "max_epochs must not be negative, got %s", maxEpochs);
+    Preconditions.checkArgument(
+      validationSplit >= 0.0 && validationSplit < 1.0, "validation_split must be in [0, 1), got %s", validationSplit
+    );
+    Preconditions.checkArgument(validateEvery > 0, "validate_every must be positive, got %s", validateEvery);
+    Preconditions.checkArgument(patience >= 0, "patience must not be negative, got %s", patience);
+    Preconditions.checkArgument(lrDecay > 0.0, "lr_decay must be positive, got %s", lrDecay);
+    Preconditions.checkArgument(pipelineDepth > 0, "pipeline_depth must be positive, got %s", pipelineDepth);
+  }
+
+  /**
+   * Sets the metrics every completed epoch is reported to, {@link Metrics#NONE} by default.
+   *
+   * @param metrics The metrics.
+   * @return The current Trainer instance.
+   */
+  @Nonnull
+  public Trainer metrics(@Nonnull Metrics metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
+  /**
+   * @return The trained network. Once training stopped with restore_best set, this is the restored best snapshot,
+   * which replaces the network the trainer was created with.
+   */
+  @Nonnull
+  public MultiLayerNeuralNetwork network() {
+    return network;
+  }
+
+  /**
+   * Trains the network on dense samples until the loss is below the given preference value.
+   * Batches reference the sample rows directly, nothing is copied.
+   *
+   * @param inputs The encoded input rows.
+   * @param outputs The encoded target rows.
+   * @param alpha The learning rate for training.
+   * @param preference The threshold for stopping the training (based on loss).
+   */
+  public void fit(@Nonnull double[][] inputs, @Nonnull double[][] outputs, double alpha, double preference) {
+    fit(references(inputs), references(outputs), outputs.length, outputs.length, alpha, preference);
+  }
+
+  /**
+   * Trains the network on dense samples with sparse targets, such as the token ids of one or more masks.
+   * Targets are scattered into reusable dense rows per batch and cleared slot by slot after the step, so only
+   * batch_size rows (64 unless set) of the output width are ever materialized.
+   *
+   * @param inputs The encoded input rows.
+   * @param targets The sparse target rows, all sharing the same dimension.
+   * @param alpha The learning rate for training.
+   * @param preference The threshold for stopping the training (based on loss).
+   */
+  public void fit(@Nonnull double[][] inputs, @Nonnull SparseVector[] targets, double alpha, double preference) {
+    fit(references(inputs), sparse(targets), targets.length, DEFAULT_BATCH, alpha, preference);
+  }
+
+  /**
+   * Trains the network on dense samples with a single target class per sample. The one-hot form of a target only
+   * exists within its batch, see {@link #fit(double[][], SparseVector[], double, double)}.
+   *
+   * @param inputs The encoded input rows.
+   * @param targets The target class id of every sample.
+   * @param classes The number of classes, the width of the output layer.
+   * @param alpha The learning rate for training.
+   * @param preference The threshold for stopping the training (based on loss).
+   */
+  public void fit(@Nonnull double[][] inputs, @Nonnull int[] targets, int classes, double alpha, double preference) {
+    fit(references(inputs), classes(targets, classes), targets.length, DEFAULT_BATCH, alpha, preference);
+  }
+
+  /**
+   * Trains the network on sparse samples until the loss is below the given preference value.
+   * Every batch is scattered into reusable dense rows and cleared slot by slot after the step. Unless
+   * batch_size is set, batches hold 64 rows so the dense form of the whole set is never materialized.
+   *
+   * @param inputs The sparse encoded input rows, all sharing the same dimension.
+   * @param outputs The encoded target rows.
+   * @param alpha The learning rate for training.
+   * @param preference The threshold for stopping the training (based on loss).
+   */
+  public void fit(@Nonnull SparseVector[] inputs, @Nonnull double[][] outputs, double alpha, double preference) {
+    fit(sparse(inputs), references(outputs), outputs.length, DEFAULT_BATCH, alpha, preference);
+  }
+
+  /**
+   * Trains the network on sparse samples with sparse targets, both materialized per batch only.
+   *
+   * @param inputs The sparse encoded input rows, all sharing the same dimension.
+   * @param targets The sparse target rows, all sharing the same dimension.
+   * @param alpha The learning rate for training.
+   * @param preference The threshold for stopping the training (based on loss).
+   */
+  public void fit(@Nonnull SparseVector[] inputs, @Nonnull SparseVector[] targets, double alpha, double preference) {
+    fit(sparse(inputs), sparse(targets), targets.length, DEFAULT_BATCH, alpha, preference);
+  }
+
+  /**
+   * Trains the network on sparse samples with a single target class per sample, both materialized per batch only.
+   *
+   * @param inputs The sparse encoded input rows, all sharing the same dimension.
+   * @param targets The target class id of every sample.
+   * @param classes The number of classes, the width of the output layer.
+   * @param alpha The learning rate for training.
+   * @param preference The threshold for stopping the training (based on loss).
+   */
+  public void fit(@Nonnull SparseVector[] inputs, @Nonnull int[] targets, int classes, double alpha, double preference) {
+    fit(sparse(inputs), classes(targets, classes), targets.length, DEFAULT_BATCH, alpha, preference);
+  }
+
+  /**
+   * Trains the network on samples held off-heap with sparse targets. Every batch is copied from the mapped rows into
+   * reusable heap rows, so only batch_size rows (64 unless set) live on the heap at any time.
+   *
+   * @param inputs The encoded input rows.
+   * @param targets The sparse target rows, all sharing the same dimension.
+   * @param alpha The learning rate for training.
+   * @param preference The threshold for stopping the training (based on loss).
+   */
+  public void fit(@Nonnull OffHeapMatrix inputs, @Nonnull SparseVector[] targets, double alpha, double preference) {
+    Preconditions.checkArgument(
+      inputs.rows() == targets.length, "%s input rows but %s targets", inputs.rows(), targets.length
+    );
+    fit(mapped(inputs), sparse(targets), targets.length, DEFAULT_BATCH, alpha, preference);
+  }
+
+  /**
+   * Trains the network on samples held off-heap with a single target class per sample, see
+   * {@link #fit(OffHeapMatrix, SparseVector[], double, double)}.
+   *
+   * @param inputs The encoded input rows.
+   * @param targets The target class id of every sample.
+   * @param classes The number of classes, the width of the output layer.
+   * @param alpha The learning rate for training.
+   * @param preference The threshold for stopping the training (based on loss).
+   */
+  public void fit(@Nonnull OffHeapMatrix inputs, @Nonnull int[] targets, int classes, double alpha, double preference) {
+    Preconditions.checkArgument(
+      inputs.rows() == targets.length, "%s input rows but %s targets", inputs.rows(), targets.length
+    );
+    fit(mapped(inputs), classes(targets, classes), targets.length, DEFAULT_BATCH, alpha, preference);
+  }
+
+  /**
+   * Trains the network on a streaming source until the loss is below the given preference value.
+   * Every epoch re-reads the source in its own order (shuffle does not apply), encoding each batch in parallel
+   * into reusable rows, ahead of training unless pipeline_depth is 1. To avoid a second pass over the source, the
+   * epoch loss is the mean loss of the batches measured right after their step, sampled every eval_every steps (every
+   * step when 0) and always on the last batch of the pass, so every epoch reports a loss of its own. Held out
+   * validation samples are measured batch by batch during the same pass.
+   *
+   * @param source The source of the samples.
+   * @param encoder The encoder writing samples into batch rows.
+   * @param alpha The learning rate for training.
+   * @param preference The threshold for stopping the training (based on loss).
+   */
+  public void fit(@Nonnull SampleSource source, @Nonnull RowEncoder encoder, double alpha, double preference) {
+    fit((Iterable<Sample>) source, encoder, alpha, preference);
+  }
+
+  /**
+   * Trains the network on any re-readable source of samples, see {@link #fit(SampleSource, RowEncoder, double, double)}.
+   * Every epoch is one call to iterator(), iterators that are {@link AutoCloseable} are closed after the pass.
+   *
+   * @param source The source of the samples.
+   * @param encoder The encoder writing samples into batch rows.
+   * @param alpha The learning rate for training.
+   * @param preference The threshold for stopping the training (based on loss).
+   * @param <T> The type of the samples.
+   */
+  public <T> void fit(@Nonnull Iterable<T> source, @Nonnull BatchEncoder<T> encoder, double alpha, double preference) {
+    fit(epoch -> source, encoder, alpha, preference);
+  }
+
+  /**
+   * Trains the network on a source that differs per epoch, see {@link #fit(Iterable, BatchEncoder, double, double)}.
+   * Every epoch reads the source returned for its index, starting at 0, so sources drawing their samples anew for
+   * every epoch stay reproducible however often they are read.
+   *
+   * @param epochs The source of the samples of an epoch.
+   * @param encoder The encoder writing samples into batch rows.
+   * @param alpha The learning rate for training.
+   * @param preference The threshold for stopping the training (based on loss).
+   * @param <T> The type of the samples.
+   */
+  public <T> void fit(@Nonnull IntFunction<? extends Iterable<T>> epochs, @Nonnull BatchEncoder<T> encoder,
+                      double alpha, double preference) {
+    int batch = batchSize > 0 ? batchSize : DEFAULT_BATCH;
+    BatchPipeline<T> pipeline = new BatchPipeline<>(encoder, this, batch, pipelineDepth);
+    Schedule schedule = new Schedule(alpha);
+    Pass training = new Pass();
+    Pass validation = new Pass();
+
+    long[] steps = {0};
+    boolean validate;
+    do {
+      validate = validationSplit > 0.0 && schedule.validates();
+      training.reset();
+      validation.reset();
+
+      double rate = schedule.alpha;
+      pipeline.pass(epochs.apply(schedule.epoch), this::heldOut, validate, (in, out, held, last) -> {
+        if (held) {
+          validation.measure(in, out);
+          return;
+        }
+        network.train(in, out, rate);
+        training.trained += in.length;
+        steps[0]++;
+        if (evalEvery <= 0 || steps[0] % evalEvery == 0 || last)
+          training.measure(in, out);
+      });
+
+      if (steps[0] == 0)
+        return; // empty source
+    } while (schedule.next(training.loss(), preference, validate ? validation.loss() : Double.NaN, training.trained));
+    schedule.finish();
+  }
+
+  private void fit(Rows inputs, Rows outputs, int size, int defaultBatch, double alpha, double preference) {
+    int held = 0;
+    for (int i = 0; i < size; i++)
+      if (heldOut(i)) held++;
+
+    int[] order = new int[size - held];
+    int[] validationOrder = new int[held];
+    for (int i = 0, t = 0, v = 0; i < size; i++) {
+      if (heldOut(i)) validationOrder[v++] = i;
+      else order[t++] = i;
+    }
+    if (order.length == 0) return;
+
+    int batch = Math.min(batchSize > 0 ? batchSize : defaultBatch, order.length);
+    Batches training = new Batches(inputs, outputs, order.length, batch);
+    Batches validation = held == 0 ? null : new Batches(inputs, outputs, held, Math.min(batch, held));
+    Schedule schedule = new Schedule(alpha);
+
+    double loss;
+    long step = 0;
+    boolean next;
+    do {
+      if (shuffle && batch < order.length)
+        shuffle(order);
+
+      loss = Double.NaN;
+      for (int from = 0; from < order.length; from += batch) {
+        Batch current = training.at(from);
+        current.load(order, from);
+        network.train(current.inputs, current.outputs, schedule.alpha);
+        current.unload(order, from);
+
+        step++;
+        if (evalEvery > 0 && step % evalEvery == 0) {
+          loss = training.loss(order);
+          if (loss <= preference) break;
+        }
+      }
+
+      if (Double.isNaN(loss))
+        loss = training.loss(order);
+
+      double validationLoss = validation != null && schedule.validates() ? validation.loss(validationOrder) : Double.NaN;
+      next = schedule.next(loss, preference, validationLoss, order.length);
+    } while (next);
+    schedule.finish();
+  }
+
+  /**
+   * Whether the sample at an index is held out for validation. Held out samples are spread evenly, every
+   * 1 / validation_split-th sample on average.
+   */
+  private boolean heldOut(long index) {
+    return validationSplit > 0.0 && (long) ((index + 1) * validationSplit) > (long) (index * validationSplit);
+  }
+
+  /**
+   * Runs a task for every index in [0, size), split into contiguous ranges across the executor.
+   * Blocks until all ranges completed.
+   *
+   * @param size The number of indices.
+   * @param task The task invoked per index.
+   */
+  public void parallel(int size, @Nonnull IntConsumer task) {
+    Parallel.forEach(executor, threads, size, task);
+  }
+
+  private void shuffle(int[] order) {
+    for (int i = order.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int swap = order[i];
+      order[i] = order[j];
+      order[j] = swap;
+    }
+  }
+
+  /**
+   * Encodes streamed samples into reusable batch rows. A row is handed back on the next call with the same row index,
+   * so implementations may clear only the slots they set the last time instead of zeroing the whole row.
+   *
+   * @param <T> The type of the samples.
+   */
+  public interface BatchEncoder<T> {
+    int inputWidth();
+
+    int outputWidth();
+
+    /**
+     * Encodes a sample into the given rows. Invoked concurrently for distinct row indices.
+     *
+     * @param row The index of the row within the batch.
+     * @param sample The sample to encode.
+     * @param input The input row, still holding the previous input encoded into this row.
+     * @param output The output row, still holding the previous target encoded into this row.
+     */
+    void encode(int row, T sample, double[] input, double[] output);
+  }
+
+  /**
+   * Encodes streamed {@link Sample}s, see {@link BatchEncoder}.
+   */
+  public interface RowEncoder extends BatchEncoder<Sample> {
+  }
+
+  /**
+   * Moves samples in and out of batch rows.
+   */
+  private interface Rows {
+    double[][] allocate(int rows);
+
+    void load(int sample, double[][] batch, int row);
+
+    void unload(int sample, double[][] batch, int row);
+  }
+
+  /**
+   * Rows referencing the dense sample rows directly.
+   */
+  private static Rows references(double[][] rows) {
+    return new Rows() {
+      @Override
+      public double[][] allocate(int count) {
+        return new double[count][];
+      }
+
+      @Override
+      public void load(int sample, double[][] batch, int row) {
+        batch[row] = rows[sample];
+      }
+
+      @Override
+      public void unload(int sample, double[][] batch, int row) {
+      }
+    };
+  }
+
+  /**
+   * Rows scattering sparse samples into reusable dense rows, cleared slot by slot after use.
+   */
+  private static Rows sparse(SparseVector[] rows) {
+    int width = rows.length == 0 ? 0 : rows[0].dimension();
+    return new Rows() {
+      @Override
+      public double[][] allocate(int count) {
+        return new double[count][width];
+      }
+
+      @Override
+      public void load(int sample, double[][] batch, int row) {
+        rows[sample].scatter(batch[row]);
+      }
+
+      @Override
+      public void unload(int sample, double[][] batch, int row) {
+        rows[sample].clear(batch[row]);
+      }
+    };
+  }
+
+  /**
+   * Rows copied from an off-heap matrix into reusable heap rows, overwritten by the next load.
+   */
+  private static Rows mapped(OffHeapMatrix rows) {
+    return new Rows() {
+      @Override
+      public double[][] allocate(int count) {
+        return new double[count][rows.width()];
+      }
+
+      @Override
+      public void load(int sample, double[][] batch, int row) {
+        rows.read(sample, batch[row]);
+      }
+
+      @Override
+      public void unload(int sample, double[][] batch, int row) {
+      }
+    };
+  }
+
+  /**
+   * Rows setting the single slot of a class id in reusable dense rows, cleared after use.
+   */
+  private static Rows classes(int[] targets, int classes) {
+    Preconditions.checkArgument(classes > 0, "classes must be positive, got %s", classes);
+    return new Rows() {
+      @Override
+      public double[][] allocate(int count) {
+        return new double[count][classes];
+      }
+
+      @Override
+      public void load(int sample, double[][] batch, int row) {
+        batch[row][targets[sample]] = 1.0;
+      }
+
+      @Override
+      public void unload(int sample, double[][] batch, int row) {
+        batch[row][targets[sample]] = 0.0;
+      }
+    };
+  }
+
+  /**
+   * Tracks the epochs, the learning rate and the best monitored loss, and decides when training stops.
+   */
+  private final class Schedule {
+
+    private double alpha;
+    private int epoch;
+    private double best = Double.MAX_VALUE;
+    private int bestEpoch;
+    private int stale;
+    private byte[] snapshot;
+    private long started = System.nanoTime();
+
+    Schedule(double alpha) {
+      this.alpha = alpha;
+    }
+
+    /**
+     * @return Whether the upcoming epoch ends with a validation.
+     */
+    boolean validates() {
+      return (epoch + 1) % validateEvery == 0;
+    }
+
+    /**
+     * Completes an epoch.
+     *
+     * @param loss The training loss of the epoch.
+     * @param preference The threshold for stopping the training.
+     * @param validation The validation loss, NaN if the epoch was not validated or there is no validation split.
+     * @param samples The number of samples trained on in the epoch.
+     * @return Whether training continues.
+     */
+    boolean next(double loss, double preference, double validation, long samples) {
+      epoch++;
+      long now = System.nanoTime();
+      metrics.epoch(epoch, loss, validation, samples, now - started);
+      started = now;
+
+      if (epoch % validateEvery == 0) {
+        double monitored = Double.isNaN(validation) ? loss : validation;
+        if (monitored < best) {
+          best = monitored;
+          bestEpoch = epoch;
+          stale = 0;
+          if (restoreBest) snapshot = snapshot();
+        } else {
+          stale++;
+        }
+      }
+
+      if (loss <= preference) return false;
+      if (patience > 0 && stale >= patience) return false;
+      if (maxEpochs > 0 && epoch >= maxEpochs) return false;
+      alpha *= lrDecay;
+      return true;
+    }
+
+    /**
+     * Restores the best snapshot if the network moved on since it was taken.
+     */
+    void finish() {
+      if (snapshot == null || bestEpoch == epoch) return;
+      try {
+        network = Checkpoint.deserialize(ByteBuffer.wrap(snapshot));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private byte[] snapshot() {
+      try {
+        return Checkpoint.serialize(network);
+      } catch (IOException e) {
+        throw new UncheckedIOException("restore_best requires a serializable network", e);
+      }
+    }
+  }
+
+  /**
+   * Reusable full and tail batches over a set of samples, taken in the order of an index array.
+   */
+  private final class Batches {
+
+    private final int size;
+    private final int batch;
+    private final Batch full;
+    private final Batch tail;
+
+    Batches(Rows inputs, Rows outputs, int size, int batch) {
+      this.size = size;
+      this.batch = batch;
+      this.full = new Batch(inputs, outputs, batch);
+      this.tail = size % batch == 0 ? full : new Batch(inputs, outputs, size % batch);
+    }
+
+    Batch at(int from) {
+      return from + batch > size ? tail : full;
+    }
+
+    /**
+     * Computes the mean loss over the samples, batch by batch, reusing the buffers.
+     */
+    double loss(int[] samples) {
+      double loss = 0.0;
+      for (int from = 0; from < size; from += batch) {
+        Batch current = at(from);
+        current.load(samples, from);
+        loss += network.loss(current.inputs, current.outputs) * current.inputs.length;
+        current.unload(samples, from);
+      }
+      return loss / size;
+    }
+  }
+
+  /**
+   * Averages the loss of the batches measured over a streamed pass.
+   */
+  private final class Pass {
+
+    private double total;
+    private long measured;
+    private long trained;
+
+    void reset() {
+      total = 0.0;
+      measured = 0;
+      trained = 0;
+    }
+
+    void measure(double[][] inputs, double[][] outputs) {
+      total += network.loss(inputs, outputs) * inputs.length;
+      measured += inputs.length;
+    }
+
+    /**
+     * @return The mean loss of the batches measured in this pass, NaN if none were measured.
+     */
+    double loss() {
+      return measured > 0 ? total / measured : Double.NaN;
+    }
+  }
+
+  /**
+   * Reusable input and output rows of one batch size.
+   */
+  private static final class Batch {
+
+    private final Rows inputRows;
+    private final Rows outputRows;
+    private final double[][] inputs;
+    private final double[][] outputs;
+
+    Batch(Rows inputRows, Rows outputRows, int rows) {
+      this.inputRows = inputRows;
+      this.outputRows = outputRows;
+      this.inputs = inputRows.allocate(rows);
+      this.outputs = outputRows.allocate(rows);
+    }
+
+    /**
+     * Loads the samples order[from, from + rows).
+     */
+    void load(int[] order, int from) {
+      for (int r = 0; r < inputs.length; r++) {
+        int sample = order[from + r];
+        inputRows.load(sample, inputs, r);
+        outputRows.load(sample, outputs, r);
+      }
+    }
+
+    void unload(int[] order, int from) {
+      for (int r = 0; r < inputs.length; r++) {
+        int sample = order[from + r];
+        inputRows.unload(sample, inputs, r);
+        outputRows.unload(sample, outputs, r);
+      }
+    }
+  }
+}
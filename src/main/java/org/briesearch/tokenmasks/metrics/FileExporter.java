@@ -0,0 +1,94 @@
+package org.briesearch.tokenmasks.metrics;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FileExporter appends the snapshot of a {@link MetricsRecorder} to a local file at a fixed period, one line per
+ * snapshot: the epoch milliseconds followed by space separated name=value pairs. Writing happens on a single daemon
+ * thread, never on training or request threads.
+ *
+ * @author Brissach
+ * @since 17.10.2026 21:30
+ * © token-masks - All Rights Reserved
+ */
+public final class FileExporter implements AutoCloseable {
+
+  private final MetricsRecorder recorder;
+  private final Path file;
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * Starts exporting.
+   *
+   * @param recorder The recorder to export.
+   * @param file The file the snapshots are appended to, created if missing.
+   * @param period The time between snapshots.
+   * @param unit The unit of the period.
+   */
+  public FileExporter(@Nonnull MetricsRecorder recorder, @Nonnull Path file, long period, @Nonnull TimeUnit unit) {
+    Preconditions.checkArgument(period > 0, "period must be positive, got %s", period);
+    this.recorder = recorder;
+    this.file = file;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "token-masks-metrics");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleAtFixedRate(this::exportQuietly, period, period, unit);
+  }
+
+  /**
+   * Appends the current snapshot.
+   *
+   * @throws IOException If the file cannot be written.
+   */
+  public void export() throws IOException {
+    StringBuilder line = new StringBuilder().append(System.currentTimeMillis());
+    for (Map.Entry<String, Double> value : recorder.snapshot().entrySet())
+      line.append(' ').append(value.getKey()).append('=').append(value.getValue());
+    line.append(System.lineSeparator());
+
+    Files.write(
+      file, line.toString().getBytes(StandardCharsets.UTF_8),
+      StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE
+    );
+  }
+
+  private void exportQuietly() {
+    try {
+      export();
+    } catch (IOException ignored) {
+      // a failing export must not cancel the schedule, the next period tries again
+    }
+  }
+
+  /**
+   * Stops exporting and appends a last snapshot.
+   *
+   * @throws UncheckedIOException If the last snapshot cannot be written.
+   */
+  @Override
+  public void close() {
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(1, TimeUnit.SECONDS);
+      export();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
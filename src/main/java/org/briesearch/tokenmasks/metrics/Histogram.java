@@ -0,0 +1,93 @@
+package org.briesearch.tokenmasks.metrics;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram counts non-negative values, such as latencies in nanoseconds, in log-linear buckets: every power of two
+ * is split into 16 linear sub-buckets, so any value is reported within 1/16 of its magnitude. Recording is a single
+ * atomic increment without locks or allocation, and the memory is fixed regardless of the number or range of values.
+ *
+ * @author Brissach
+ * @since 17.10.2026 21:30
+ * © token-masks - All Rights Reserved
+ */
+public final class Histogram {
+
+  private static final int SUB_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+  private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * @param value The value to record, negative values are recorded as 0.
+   */
+  public void record(long value) {
+    value = Math.max(0L, value);
+    counts.incrementAndGet(bucket(value));
+    count.increment();
+    sum.add(value);
+    if (value > max.get())
+      max.accumulateAndGet(value, Math::max);
+  }
+
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS) return (int) value;
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  /**
+   * @return The smallest value of a bucket.
+   */
+  static long lowerBound(int bucket) {
+    if (bucket < SUB_BUCKETS) return bucket;
+    int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+    long sub = bucket % SUB_BUCKETS;
+    return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+  }
+
+  public long count() {
+    return count.sum();
+  }
+
+  public long max() {
+    return max.get();
+  }
+
+  public double mean() {
+    long count = count();
+    return count == 0 ? 0.0 : (double) sum.sum() / count;
+  }
+
+  /**
+   * Estimates a percentile from the buckets. Concurrent recordings may or may not be included.
+   *
+   * @param percentile The percentile in [0, 100].
+   * @return The lower bound of the bucket holding the percentile, 0 if nothing was recorded.
+   */
+  public long percentile(double percentile) {
+    Preconditions.checkArgument(
+      percentile >= 0.0 && percentile <= 100.0, "percentile must be in [0, 100], got %s", percentile
+    );
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) total += counts.get(i);
+    if (total == 0) return 0L;
+
+    long rank = Math.max(1L, (long) Math.ceil(total * percentile / 100.0));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) return Math.min(lowerBound(i), max());
+    }
+    return max();
+  }
+}
@@ -0,0 +1,117 @@
+package org.briesearch.tokenmasks.metrics;
+
+import javax.annotation.Nonnull;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * JmxExporter publishes the snapshot of a {@link MetricsRecorder} as read-only attributes of an MBean named
+ * org.briesearch.tokenmasks:type=Metrics,name=&lt;name&gt; on the platform MBean server. Attributes are read from
+ * the recorder on every access, so monitoring tools always see current values.
+ *
+ * @author Brissach
+ * @since 17.10.2026 21:30
+ * © token-masks - All Rights Reserved
+ */
+public final class JmxExporter implements AutoCloseable {
+
+  private final MBeanServer server;
+  private final ObjectName name;
+
+  /**
+   * Registers the recorder on the platform MBean server.
+   *
+   * @param recorder The recorder to publish.
+   * @param name The name distinguishing this model from others in the same JVM.
+   * @throws IllegalStateException If the MBean cannot be registered, for example because the name is taken.
+   */
+  public JmxExporter(@Nonnull MetricsRecorder recorder, @Nonnull String name) {
+    this.server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      this.name = new ObjectName("org.briesearch.tokenmasks:type=Metrics,name=" + ObjectName.quote(name));
+      server.registerMBean(new RecorderMBean(recorder), this.name);
+    } catch (JMException e) {
+      throw new IllegalStateException("Metrics " + name + " cannot be registered", e);
+    }
+  }
+
+  @Nonnull
+  public ObjectName name() {
+    return name;
+  }
+
+  /**
+   * Unregisters the MBean.
+   */
+  @Override
+  public void close() {
+    try {
+      server.unregisterMBean(name);
+    } catch (JMException e) {
+      throw new IllegalStateException("Metrics " + name + " cannot be unregistered", e);
+    }
+  }
+
+  private static final class RecorderMBean implements DynamicMBean {
+
+    private final MetricsRecorder recorder;
+
+    RecorderMBean(MetricsRecorder recorder) {
+      this.recorder = recorder;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+      Double value = recorder.snapshot().get(attribute);
+      if (value == null) throw new AttributeNotFoundException(attribute);
+      return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+      Map<String, Double> snapshot = recorder.snapshot();
+      AttributeList list = new AttributeList();
+      for (String attribute : attributes)
+        if (snapshot.containsKey(attribute))
+          list.add(new Attribute(attribute, snapshot.get(attribute)));
+      return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) {
+      throw new UnsupportedOperationException("Metrics are read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+      return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String action, Object[] params, String[] signature) {
+      throw new UnsupportedOperationException("Metrics have no operations");
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+      Map<String, Double> snapshot = recorder.snapshot();
+      MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[snapshot.size()];
+      int i = 0;
+      for (String key : snapshot.keySet())
+        attributes[i++] = new MBeanAttributeInfo(key, Double.class.getName(), key, true, false, false);
+      return new MBeanInfo(
+        getClass().getName(), "token-masks metrics", attributes, null, new MBeanOperationInfo[0], null
+      );
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package org.briesearch.tokenmasks.metrics;
+
+import javax.annotation.Nonnull;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Metrics receives training progress and inference latencies of a model. All methods do nothing by default, so
+ * implementations only override what they record. Latencies are reported from request threads concurrently.
+ * <p>
+ * {@link #NONE} is the default of every model and trainer. Models skip taking timestamps entirely while it is set.
+ *
+ * @author Brissach
+ * @since 17.10.2026 21:30
+ * © token-masks - All Rights Reserved
+ */
+public interface Metrics {
+
+  /**
+   * Records nothing.
+   */
+  Metrics NONE = new Metrics() {
+  };
+
+  /**
+   * Phases of a prediction, see {@link #latency(Phase, long)}.
+   */
+  enum Phase {
+    TOKENIZE, ENCODE, PREDICT, SAMPLE
+  }
+
+  /**
+   * Called once before training on an encoded set of samples.
+   *
+   * @param samples The number of samples, -1 if they are streamed.
+   * @param inputWidth The width of an encoded input row.
+   * @param outputWidth The width of an encoded target row.
+   */
+  default void training(int samples, int inputWidth, int outputWidth) {
+  }
+
+  /**
+   * Called after every training epoch.
+   *
+   * @param epoch The number of completed epochs.
+   * @param loss The training loss.
+   * @param validation The validation loss, NaN if the epoch was not validated.
+   * @param samples The number of samples trained on in this epoch.
+   * @param nanos The duration of the epoch, including loss evaluation.
+   */
+  default void epoch(int epoch, double loss, double validation, long samples, long nanos) {
+  }
+
+  /**
+   * Called for every phase of a prediction.
+   *
+   * @param phase The phase.
+   * @param nanos The duration of the phase.
+   */
+  default void latency(@Nonnull Phase phase, long nanos) {
+  }
+
+  /**
+   * Registers a value that is read whenever the metrics are exported, such as the vocabulary size.
+   *
+   * @param name The name of the value.
+   * @param value The supplier of the current value.
+   */
+  default void gauge(@Nonnull String name, @Nonnull DoubleSupplier value) {
+  }
+
+  /**
+   * @return Metrics printing the shape and every epoch to the standard output, like models did before metrics
+   * were pluggable.
+   */
+  @Nonnull
+  static Metrics console() {
+    return new Metrics() {
+      @Override
+      public void training(int samples, int inputWidth, int outputWidth) {
+        System.out.println("Shape: " + inputWidth);
+      }
+
+      @Override
+      public void epoch(int epoch, double loss, double validation, long samples, long nanos) {
+        System.out.println("Epoch: " + epoch + " Loss: " + loss + (Double.isNaN(validation) ? "" : " Validation: " + validation));
+      }
+    };
+  }
+}
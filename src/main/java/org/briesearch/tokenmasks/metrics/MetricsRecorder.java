@@ -0,0 +1,105 @@
+package org.briesearch.tokenmasks.metrics;
+
+import javax.annotation.Nonnull;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * MetricsRecorder keeps the latest training progress, a latency histogram per prediction phase and the registered
+ * gauges in memory. {@link #snapshot()} flattens everything into named values for exporters such as
+ * {@link JmxExporter} and {@link FileExporter}.
+ *
+ * @author Brissach
+ * @since 17.10.2026 21:30
+ * © token-masks - All Rights Reserved
+ */
+public final class MetricsRecorder implements Metrics {
+
+  private final Map<Phase, Histogram> latencies = new EnumMap<>(Phase.class);
+  private final Histogram epochs = new Histogram();
+  private final LongAdder trainedSamples = new LongAdder();
+  private final Map<String, DoubleSupplier> gauges = new ConcurrentSkipListMap<>();
+
+  private volatile int epoch;
+  private volatile double loss = Double.NaN;
+  private volatile double validation = Double.NaN;
+  private volatile double samplesPerSecond;
+
+  public MetricsRecorder() {
+    for (Phase phase : Phase.values())
+      latencies.put(phase, new Histogram());
+  }
+
+  @Override
+  public void epoch(int epoch, double loss, double validation, long samples, long nanos) {
+    this.epoch = epoch;
+    this.loss = loss;
+    if (!Double.isNaN(validation))
+      this.validation = validation;
+    this.samplesPerSecond = nanos > 0 ? samples * 1e9 / nanos : 0.0;
+    trainedSamples.add(samples);
+    epochs.record(nanos);
+  }
+
+  @Override
+  public void latency(@Nonnull Phase phase, long nanos) {
+    latencies.get(phase).record(nanos);
+  }
+
+  @Override
+  public void gauge(@Nonnull String name, @Nonnull DoubleSupplier value) {
+    gauges.put(name, value);
+  }
+
+  /**
+   * @param phase The phase of a prediction.
+   * @return The latencies of the phase in nanoseconds.
+   */
+  @Nonnull
+  public Histogram latency(@Nonnull Phase phase) {
+    return latencies.get(phase);
+  }
+
+  /**
+   * @return The durations of the training epochs in nanoseconds.
+   */
+  @Nonnull
+  public Histogram epochs() {
+    return epochs;
+  }
+
+  /**
+   * Reads all metrics. Latencies are reported in microseconds, epoch durations in seconds.
+   *
+   * @return The current values by name, sorted by name.
+   */
+  @Nonnull
+  public SortedMap<String, Double> snapshot() {
+    SortedMap<String, Double> values = new TreeMap<>();
+    values.put("training.epoch", (double) epoch);
+    values.put("training.loss", loss);
+    values.put("training.validation_loss", validation);
+    values.put("training.samples", (double) trainedSamples.sum());
+    values.put("training.samples_per_second", samplesPerSecond);
+    values.put("training.epoch_seconds.mean", epochs.mean() / 1e9);
+    values.put("training.epoch_seconds.max", epochs.max() / 1e9);
+
+    latencies.forEach((phase, histogram) -> {
+      String prefix = "latency." + phase.name().toLowerCase(Locale.ROOT) + ".";
+      values.put(prefix + "count", (double) histogram.count());
+      values.put(prefix + "mean_us", histogram.mean() / 1e3);
+      values.put(prefix + "p50_us", histogram.percentile(50) / 1e3);
+      values.put(prefix + "p99_us", histogram.percentile(99) / 1e3);
+      values.put(prefix + "max_us", histogram.max() / 1e3);
+    });
+
+    gauges.forEach((name, gauge) -> values.put(name, gauge.getAsDouble()));
+    return values;
+  }
+}
@@ -0,0 +1,144 @@
+package org.briesearch.tokenmasks.sampling;
+
+import java.util.Random;
+
+/**
+ * Candidates holds the selection and drawing routines shared by the samplers.
+ *
+ * @author Brissach
+ * @since 17.10.2026 20:03
+ * © token-masks - All Rights Reserved
+ */
+public final class Candidates {
+
+  private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+  private Candidates() {
+  }
+
+  /**
+   * @return The index of the largest value, the first one on ties.
+   */
+  public static int argmax(double[] values) {
+    int best = 0;
+    for (int i = 1; i < values.length; i++)
+      if (values[i] > values[best]) best = i;
+    return best;
+  }
+
+  /**
+   * Selects the indices of the k largest values through a bounded min-heap, in O(n log k).
+   *
+   * @param values The values.
+   * @param k The number of indices to select.
+   * @param into The array receiving the indices, at least min(k, values.length) long.
+   * @return The number of selected indices, ordered from the largest to the smallest value.
+   */
+  public static int top(double[] values, int k, int[] into) {
+    k = Math.min(k, values.length);
+    int size = 0;
+
+    for (int i = 0; i < values.length; i++) {
+      if (size < k) {
+        into[size] = i;
+        siftUp(into, size++, values);
+      } else if (values[i] > values[into[0]]) {
+        into[0] = i;
+        siftDown(into, size, values);
+      }
+    }
+
+    // pop the heap minimum into the back, leaving the indices ordered descending
+    for (int end = size - 1; end > 0; end--) {
+      int min = into[0];
+      into[0] = into[end];
+      siftDown(into, end, values);
+      into[end] = min;
+    }
+    return size;
+  }
+
+  /**
+   * Draws one of the candidates with a chance proportional to its probability raised to 1 / temperature.
+   * The temperature is applied in log space relative to the most probable candidate, which keeps small
+   * probabilities and low temperatures from underflowing.
+   *
+   * @param probabilities The probabilities of all tokens.
+   * @param candidates The candidate indices, or null to draw from all tokens.
+   * @param count The number of candidates.
+   * @param max The largest probability among the candidates.
+   * @param temperature The temperature, above 0.
+   * @param random The source of randomness.
+   * @return The drawn token index.
+   */
+  static int draw(double[] probabilities, int[] candidates, int count, double max, double temperature, Random random) {
+    double[] weights = SCRATCH.get().weights(count);
+    double logMax = Math.log(max);
+    double inverse = 1.0 / temperature;
+    double total = 0.0;
+    for (int i = 0; i < count; i++) {
+      double probability = probabilities[candidates == null ? i : candidates[i]];
+      double weight = temperature == 1.0 || probability <= 0.0
+        ? Math.max(probability, 0.0)
+        : Math.exp((Math.log(probability) - logMax) * inverse);
+      weights[i] = weight;
+      total += weight;
+    }
+
+    double threshold = random.nextDouble() * total;
+    double cumulative = 0.0;
+    for (int i = 0; i < count; i++) {
+      cumulative += weights[i];
+      if (threshold < cumulative) return candidates == null ? i : candidates[i];
+    }
+    // rounding, or no candidate carries weight
+    return candidates == null ? argmax(probabilities) : candidates[0];
+  }
+
+  static int[] indices(int size) {
+    return SCRATCH.get().indices(size);
+  }
+
+  private static void siftUp(int[] heap, int index, double[] values) {
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (values[heap[parent]] <= values[heap[index]]) break;
+      int swap = heap[parent];
+      heap[parent] = heap[index];
+      heap[index] = swap;
+      index = parent;
+    }
+  }
+
+  private static void siftDown(int[] heap, int size, double[] values) {
+    int index = 0;
+    while (true) {
+      int left = 2 * index + 1, right = left + 1, smallest = index;
+      if (left < size && values[heap[left]] < values[heap[smallest]]) smallest = left;
+      if (right < size && values[heap[right]] < values[heap[smallest]]) smallest = right;
+      if (smallest == index) return;
+      int swap = heap[smallest];
+      heap[smallest] = heap[index];
+      heap[index] = swap;
+      index = smallest;
+    }
+  }
+
+  /**
+   * Per thread buffers, grown on demand and reused across calls.
+   */
+  private static final class Scratch {
+    private int[] indices = new int[64];
+    private double[] weights = new double[64];
+
+    int[] indices(int size) {
+      if (indices.length < size) indices = new int[Math.max(size, indices.length << 1)];
+      return indices;
+    }
+
+    double[] weights(int size) {
+      if (weights.length < size) weights = new double[Math.max(size, weights.length << 1)];
+      return weights;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package org.briesearch.tokenmasks.sampling;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nonnull;
+import java.util.Random;
+
+/**
+ * NucleusSampler (top-p) draws among the smallest set of most probable tokens whose probabilities add up to at
+ * least p, optionally capped at k tokens. The nucleus is chosen on the probabilities as predicted, the temperature
+ * is then applied to the nucleus alone.
+ * <p>
+ * Candidates are selected with a bounded heap starting at 32 tokens, doubling the bound until the nucleus is
+ * covered, so the cost follows the size of the nucleus rather than the size of the vocabulary.
+ *
+ * @author Brissach
+ * @since 17.10.2026 20:21
+ * © token-masks - All Rights Reserved
+ */
+public final class NucleusSampler implements TokenSampler {
+
+  private static final int INITIAL_CANDIDATES = 32;
+
+  private final double p;
+  private final int k;
+
+  /**
+   * @param p The probability mass of the nucleus, within (0, 1].
+   */
+  public NucleusSampler(double p) {
+    this(p, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @param p The probability mass of the nucleus, within (0, 1].
+   * @param k The largest number of candidates, positive.
+   */
+  public NucleusSampler(double p, int k) {
+    Preconditions.checkArgument(p > 0.0 && p <= 1.0, "p must be within (0, 1], got %s", p);
+    Preconditions.checkArgument(k > 0, "k must be positive, got %s", k);
+    this.p = p;
+    this.k = k;
+  }
+
+  @Override
+  public int sample(@Nonnull double[] probabilities, double temperature, @Nonnull Random random) {
+    double total = 0.0;
+    for (double probability : probabilities)
+      total += probability;
+    double mass = p * total;
+
+    int limit = Math.min(k, probabilities.length);
+    int bound = Math.min(INITIAL_CANDIDATES, limit);
+    while (true) {
+      int[] candidates = Candidates.indices(bound);
+      int count = Candidates.top(probabilities, bound, candidates);
+
+      double cumulative = 0.0;
+      int nucleus = 0;
+      while (nucleus < count && cumulative < mass)
+        cumulative += probabilities[candidates[nucleus++]];
+
+      if (cumulative >= mass || bound == limit) {
+        if (temperature <= 0.0 || nucleus <= 1)
+          return candidates[0];
+        return Candidates.draw(probabilities, candidates, nucleus, probabilities[candidates[0]], temperature, random);
+      }
+      bound = (int) Math.min(limit, (long) bound << 1);
+    }
+  }
+
+  public double p() {
+    return p;
+  }
+}
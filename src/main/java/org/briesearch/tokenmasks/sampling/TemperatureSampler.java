@@ -0,0 +1,27 @@
+package org.briesearch.tokenmasks.sampling;
+
+import javax.annotation.Nonnull;
+import java.util.Random;
+
+/**
+ * TemperatureSampler draws from the whole vocabulary, with every probability raised to 1 / temperature.
+ *
+ * @author Brissach
+ * @since 17.10.2026 20:11
+ * © token-masks - All Rights Reserved
+ */
+public final class TemperatureSampler implements TokenSampler {
+
+  public static final TemperatureSampler INSTANCE = new TemperatureSampler();
+
+  private TemperatureSampler() {
+  }
+
+  @Override
+  public int sample(@Nonnull double[] probabilities, double temperature, @Nonnull Random random) {
+    int best = Candidates.argmax(probabilities);
+    if (temperature <= 0.0)
+      return best;
+    return Candidates.draw(probabilities, null, probabilities.length, probabilities[best], temperature, random);
+  }
+}
@@ -0,0 +1,27 @@
+package org.briesearch.tokenmasks.sampling;
+
+import javax.annotation.Nonnull;
+import java.util.Random;
+
+/**
+ * TokenSampler draws a token index from the output probabilities of the network.
+ * Implementations are stateless and safe for concurrent use, scratch space is kept per thread.
+ *
+ * @author Brissach
+ * @since 17.10.2026 19:58
+ * © token-masks - All Rights Reserved
+ */
+@FunctionalInterface
+public interface TokenSampler {
+
+  /**
+   * Samples a token index. The probabilities are not modified.
+   *
+   * @param probabilities The output probabilities for each token.
+   * @param temperature The temperature value controlling the randomness of the sampling,
+   *                    0 or below always selects the most probable token.
+   * @param random The source of randomness.
+   * @return The index of the sampled token.
+   */
+  int sample(@Nonnull double[] probabilities, double temperature, @Nonnull Random random);
+}
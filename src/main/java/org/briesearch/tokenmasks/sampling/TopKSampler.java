@@ -0,0 +1,40 @@
+package org.briesearch.tokenmasks.sampling;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nonnull;
+import java.util.Random;
+
+/**
+ * TopKSampler draws among the k most probable tokens only. The candidates are selected with a bounded heap and
+ * the temperature is applied to them alone, so the cost beyond a single pass over the vocabulary depends on k.
+ *
+ * @author Brissach
+ * @since 17.10.2026 20:15
+ * © token-masks - All Rights Reserved
+ */
+public final class TopKSampler implements TokenSampler {
+
+  private final int k;
+
+  /**
+   * @param k The number of candidates, positive.
+   */
+  public TopKSampler(int k) {
+    Preconditions.checkArgument(k > 0, "k must be positive, got %s", k);
+    this.k = k;
+  }
+
+  @Override
+  public int sample(@Nonnull double[] probabilities, double temperature, @Nonnull Random random) {
+    int[] candidates = Candidates.indices(Math.min(k, probabilities.length));
+    int count = Candidates.top(probabilities, k, candidates);
+    if (temperature <= 0.0 || count == 1)
+      return candidates[0];
+    return Candidates.draw(probabilities, candidates, count, probabilities[candidates[0]], temperature, random);
+  }
+
+  public int k() {
+    return k;
+  }
+}
@@ -10,18 +10,96 @@ import java.util.regex.Pattern;
 public abstract class AbstractTokenizer {
 
   protected final Pattern delimiter;
+  /* the single delimiter characters the pattern was built from, null if it was given as a pattern */
+  protected final String delimiterChars;
+  /* table driven replacement of the delimiter pattern, null if the pattern may match more than one character */
+  protected final DelimiterScanner scanner;
   protected final boolean findNearestToken;
   protected final boolean allowRegistrations;
   protected final boolean lowercaseTokens;
   protected final boolean fitUponTokenization;
   protected final boolean simpleTokens;
+  protected final boolean unknownToken;
+  protected final int minFrequency;
+  protected final int maxVocabulary;
 
   public AbstractTokenizer(TokenizerBuilder builder) {
     delimiter = builder.delimiter;
+    delimiterChars = builder.delimiterChars;
+    scanner = builder.delimiterChars != null
+      ? DelimiterScanner.of(builder.delimiterChars)
+      : builder.delimiter == Tokenizer.DELIMITER ? DelimiterScanner.standard() : null;
     findNearestToken = builder.findNearestToken;
     allowRegistrations = builder.allowRegistrations;
     lowercaseTokens = builder.lowercaseTokens;
     fitUponTokenization = builder.fitUponTokenization;
     simpleTokens = builder.simpleTokens;
+    unknownToken = builder.unknownToken;
+    minFrequency = builder.minFrequency;
+    maxVocabulary = builder.maxVocabulary;
+  }
+
+  /**
+   * Copies the configuration of another tokenizer.
+   *
+   * @param source The tokenizer to copy the configuration from.
+   * @param frozen Whether the copy is frozen, which disables fitting upon tokenization.
+   */
+  protected AbstractTokenizer(AbstractTokenizer source, boolean frozen) {
+    delimiter = source.delimiter;
+    delimiterChars = source.delimiterChars;
+    scanner = source.scanner;
+    findNearestToken = source.findNearestToken;
+    allowRegistrations = source.allowRegistrations && !frozen;
+    lowercaseTokens = source.lowercaseTokens;
+    fitUponTokenization = source.fitUponTokenization && !frozen;
+    simpleTokens = source.simpleTokens;
+    unknownToken = source.unknownToken;
+    minFrequency = source.minFrequency;
+    maxVocabulary = source.maxVocabulary;
+  }
+
+  public Pattern delimiter() {
+    return delimiter;
+  }
+
+  /**
+   * @return The delimiter characters set through {@link TokenizerBuilder#withDelimiters(String)}, or null if the
+   * delimiters are a pattern.
+   */
+  public String delimiterChars() {
+    return delimiterChars;
+  }
+
+  public boolean findNearestToken() {
+    return findNearestToken;
+  }
+
+  public boolean allowRegistrations() {
+    return allowRegistrations;
+  }
+
+  public boolean lowercaseTokens() {
+    return lowercaseTokens;
+  }
+
+  public boolean fitUponTokenization() {
+    return fitUponTokenization;
+  }
+
+  public boolean simpleTokens() {
+    return simpleTokens;
+  }
+
+  public boolean unknownToken() {
+    return unknownToken;
+  }
+
+  public int minFrequency() {
+    return minFrequency;
+  }
+
+  public int maxVocabulary() {
+    return maxVocabulary;
   }
 }
\ No newline at end of file
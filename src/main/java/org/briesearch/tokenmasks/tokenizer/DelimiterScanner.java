@@ -0,0 +1,78 @@
+package org.briesearch.tokenmasks.tokenizer;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DelimiterScanner classifies characters as delimiters through a precomputed bit table over all UTF-16 code units,
+ * replacing a regex scan for delimiter sets made of single characters.
+ *
+ * @author Brissach
+ * @since 17.10.2026 18:52
+ * © token-masks - All Rights Reserved
+ */
+final class DelimiterScanner {
+
+  private final long[] table = new long[(Character.MAX_VALUE + 1) >>> 6];
+
+  private DelimiterScanner() {
+  }
+
+  /**
+   * Builds a scanner from an explicit set of delimiter characters.
+   *
+   * @param delimiters The delimiter characters.
+   * @return The scanner.
+   */
+  static DelimiterScanner of(CharSequence delimiters) {
+    DelimiterScanner scanner = new DelimiterScanner();
+    for (int i = 0; i < delimiters.length(); i++)
+      scanner.set(delimiters.charAt(i));
+    return scanner;
+  }
+
+  /**
+   * Builds a scanner from a pattern matching single characters, by evaluating the pattern once per code unit.
+   * Only valid for patterns that never match more than one character, such as {@link Tokenizer#DELIMITER}.
+   *
+   * @param pattern The single character pattern.
+   * @return The scanner.
+   */
+  static DelimiterScanner of(Pattern pattern) {
+    DelimiterScanner scanner = new DelimiterScanner();
+    char[] unit = new char[1];
+    Matcher matcher = pattern.matcher("");
+    for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+      unit[0] = (char) c;
+      if (matcher.reset(new String(unit)).matches())
+        scanner.set((char) c);
+    }
+    return scanner;
+  }
+
+  /**
+   * @return The scanner of {@link Tokenizer#DELIMITER}, built on first use.
+   */
+  static DelimiterScanner standard() {
+    return Standard.INSTANCE;
+  }
+
+  boolean isDelimiter(char c) {
+    return (table[c >>> 6] & (1L << c)) != 0;
+  }
+
+  /**
+   * @return Whether the character is matched by the regex class \s, which the tokenizer splits words on.
+   */
+  static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  private void set(char c) {
+    table[c >>> 6] |= 1L << c;
+  }
+
+  private static final class Standard {
+    static final DelimiterScanner INSTANCE = of(Tokenizer.DELIMITER);
+  }
+}
@@ -0,0 +1,132 @@
+package org.briesearch.tokenmasks.tokenizer;
+
+import java.util.Arrays;
+
+/**
+ * TokenTrie is a character trie over the tokens of a {@link Vocabulary}, used to find the longest known prefix
+ * of a character range in a single pass without allocating. Transitions are kept in an open-addressing table
+ * keyed by (parent node, character), and every node records the id of the token ending there.
+ * <p>
+ * The trie follows the publication rules of the vocabulary: it is written by a single writer before the token
+ * becomes visible through the vocabulary size, and readers ignore token ids at or above the size they observed.
+ *
+ * @author Brissach
+ * @since 17.10.2026 17:35
+ * © token-masks - All Rights Reserved
+ */
+final class TokenTrie {
+
+  /* transition table, published as a whole when it grows */
+  private volatile Table table = new Table(64);
+  /* token id + 1 per node, 0 if no token ends at the node */
+  private volatile int[] terminals = new int[32];
+  private int nodes = 1; // node 0 is the root
+  private int transitions;
+
+  /**
+   * Registers a token. Must only be called by the single writer of the owning vocabulary.
+   *
+   * @param token The token.
+   * @param id The id of the token.
+   */
+  void insert(String token, int id) {
+    int node = 0;
+    for (int i = 0; i < token.length(); i++) {
+      int child = child(table, node, token.charAt(i));
+      if (child == 0) {
+        child = nodes++;
+        if (child == terminals.length)
+          terminals = Arrays.copyOf(terminals, child << 1);
+        put(node, token.charAt(i), child);
+      }
+      node = child;
+    }
+    if (terminals[node] == 0)
+      terminals[node] = id + 1;
+  }
+
+  /**
+   * Finds the longest token that is a prefix of text[from, to).
+   *
+   * @param text The text to match against.
+   * @param from The start of the range, inclusive.
+   * @param to The end of the range, exclusive.
+   * @param count The number of visible tokens, ids at or above are ignored.
+   * @return The id of the token in the upper and its length in the lower 32 bits, or -1 if no token matches.
+   */
+  long longestPrefix(CharSequence text, int from, int to, int count) {
+    Table table = this.table;
+    int[] terminals = this.terminals;
+    long best = -1;
+    int node = 0;
+    for (int i = from; i < to; i++) {
+      node = child(table, node, text.charAt(i));
+      if (node == 0) break;
+      int id = node < terminals.length ? terminals[node] - 1 : -1;
+      if (id >= 0 && id < count)
+        best = ((long) id << 32) | (i - from + 1);
+    }
+    return best;
+  }
+
+  private void put(int node, char c, int child) {
+    Table table = this.table;
+    if ((transitions + 1) << 1 > table.keys.length) {
+      table = table.grow();
+      this.table = table;
+    }
+    table.put(key(node, c), child);
+    transitions++;
+  }
+
+  private static int child(Table table, int node, char c) {
+    long key = key(node, c);
+    long[] keys = table.keys;
+    int mask = keys.length - 1;
+    for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+      long k = keys[slot];
+      if (k == 0) return 0;
+      if (k == key) return table.children[slot];
+    }
+  }
+
+  /* the node is offset by one so that no key is 0, which marks an empty slot */
+  private static long key(int node, char c) {
+    return ((long) (node + 1) << 16) | c;
+  }
+
+  private static int mix(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private static final class Table {
+    final long[] keys;
+    final int[] children;
+
+    Table(int capacity) {
+      keys = new long[capacity];
+      children = new int[capacity];
+    }
+
+    /**
+     * Slots are written once. A reader racing the writer observes either the child or 0 for a slot,
+     * and 0 reads as an absent transition.
+     */
+    void put(long key, int child) {
+      int mask = keys.length - 1;
+      int slot = mix(key) & mask;
+      while (keys[slot] != 0) slot = (slot + 1) & mask;
+      children[slot] = child;
+      keys[slot] = key;
+    }
+
+    Table grow() {
+      Table grown = new Table(keys.length << 1);
+      for (int slot = 0; slot < keys.length; slot++)
+        if (keys[slot] != 0)
+          grown.put(keys[slot], children[slot]);
+      return grown;
+    }
+  }
+}
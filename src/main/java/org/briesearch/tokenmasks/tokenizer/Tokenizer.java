@@ -1,5 +1,6 @@
 package org.briesearch.tokenmasks.tokenizer;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -17,10 +18,50 @@ public interface Tokenizer {
     "[()?!.,:;*+\\-/\\\\|\\[\\]{}<>=~&^%$#@`\"'\\d]"
   );
 
+  /**
+   * The token reserved for out-of-vocabulary tokens, see {@link TokenizerBuilder#unknownToken()}.
+   * The default delimiters split it, but tokenizers with simple tokens or delimiters keeping '<' and '>' produce it
+   * from text, where it maps to the reserved index like any unknown token.
+   */
+  String UNKNOWN = "<unk>";
+
   List<String> tokenize(String text);
 
+  /**
+   * Tokenizes the input text and writes the index of every token into the given array, -1 for unknown tokens.
+   * Implementations may skip creating strings for tokens that are part of the vocabulary.
+   *
+   * @param text The input text to tokenize.
+   * @param ids The array receiving the token indices.
+   * @param offset The position of the first index within the array.
+   * @return The number of tokens. Tokens beyond the end of the array are counted but not written.
+   */
+  default int tokenizeIds(String text, int[] ids, int offset) {
+    List<String> tokens = tokenize(text);
+    int writable = Math.min(tokens.size(), ids.length - offset);
+    for (int i = 0; i < writable; i++)
+      ids[offset + i] = indexOf(tokens.get(i));
+    return tokens.size();
+  }
+
   int indexOf(String token);
 
+  /**
+   * @return The index of the token, or {@link #unknownIndex()} if the token is not part of the vocabulary.
+   */
+  default int indexOfOrUnknown(String token) {
+    int index = indexOf(token);
+    return index != -1 ? index : unknownIndex();
+  }
+
+  /**
+   * @return The index of the reserved {@link #UNKNOWN} token out-of-vocabulary tokens map to, or -1 if the
+   * tokenizer reserves none.
+   */
+  default int unknownIndex() {
+    return -1;
+  }
+
   String wordOf(int index);
 
   default void fit(Iterable<String> tokens) {
@@ -33,10 +74,63 @@ public interface Tokenizer {
 
   void fit(String token);
 
+  /**
+   * Fits counted tokens, the most frequent first, so token ids are sorted by frequency.
+   * Tokens with equal counts keep the iteration order of the map.
+   *
+   * @param counts The number of occurrences per token.
+   */
+  default void fit(Map<String, Long> counts) {
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+    entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+    for (Map.Entry<String, Long> entry : entries)
+      fit(entry.getKey());
+  }
+
+  /**
+   * Computes the number of tokens the tokenizer would know after {@link #fit(Map)} with the given counts, without
+   * fitting any of them.
+   *
+   * @param counts The number of occurrences per token.
+   * @return The projected vocabulary size.
+   */
+  default int projectedSize(Map<String, Long> counts) {
+    int size = size();
+    for (String token : counts.keySet())
+      if (indexOf(token) == -1)
+        size++;
+    return size;
+  }
+
   long countTotalCharacters();
 
   long countCharacters();
 
+  /**
+   * @return The number of tokens known to the tokenizer.
+   */
+  default int size() {
+    return asMap().size();
+  }
+
+  /**
+   * @return A read-only view of token to index. Implementations should avoid copying the vocabulary.
+   */
   Map<String, Integer> asMap();
 
+  /**
+   * Creates an immutable snapshot of this tokenizer. The snapshot never registers tokens, neither through
+   * {@link #fit(String)} nor upon tokenization, and is safe to share between any number of threads.
+   *
+   * @return The frozen tokenizer.
+   * @throws UnsupportedOperationException If the implementation does not support freezing.
+   */
+  default Tokenizer freeze() {
+    throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support freezing");
+  }
+
+  default boolean isFrozen() {
+    return false;
+  }
+
 }
\ No newline at end of file
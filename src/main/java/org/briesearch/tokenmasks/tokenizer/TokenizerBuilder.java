@@ -1,5 +1,7 @@
 package org.briesearch.tokenmasks.tokenizer;
 
+import com.google.common.base.Preconditions;
+
 import java.util.regex.Pattern;
 
 /**
@@ -10,6 +12,7 @@ import java.util.regex.Pattern;
 public class TokenizerBuilder {
 
   protected Pattern delimiter = Tokenizer.DELIMITER;
+  protected String delimiterChars;
 
   protected boolean findNearestToken;
   protected boolean allowRegistrations;
@@ -18,6 +21,9 @@ public class TokenizerBuilder {
   protected boolean optTokens;
   protected boolean whitespacePlaceholder;
   protected boolean simpleTokens;
+  protected boolean unknownToken;
+  protected int minFrequency = 1;
+  protected int maxVocabulary = Integer.MAX_VALUE;
 
   public TokenizerBuilder includeUnseenTokens() {
     allowRegistrations = true;
@@ -49,6 +55,42 @@ public class TokenizerBuilder {
     return this;
   }
 
+  /**
+   * Reserves the first id for {@link Tokenizer#UNKNOWN}, which out-of-vocabulary tokens are encoded as.
+   *
+   * @return Returns this instance for chaining
+   */
+  public TokenizerBuilder unknownToken() {
+    unknownToken = true;
+    return this;
+  }
+
+  /**
+   * Sets the number of occurrences a token needs to be registered when fitting counted tokens
+   * ({@link Tokenizer#fit(java.util.Map)}).
+   *
+   * @param minFrequency The minimum number of occurrences.
+   * @return Returns this instance for chaining
+   */
+  public TokenizerBuilder minFrequency(int minFrequency) {
+    Preconditions.checkArgument(minFrequency > 0, "minFrequency must be positive, got %s", minFrequency);
+    this.minFrequency = minFrequency;
+    return this;
+  }
+
+  /**
+   * Caps the vocabulary, including reserved tokens. Once full, new tokens are no longer registered by fitting or
+   * upon tokenization and are encoded as {@link Tokenizer#UNKNOWN} if reserved.
+   *
+   * @param maxVocabulary The maximum number of tokens.
+   * @return Returns this instance for chaining
+   */
+  public TokenizerBuilder maxVocabulary(int maxVocabulary) {
+    Preconditions.checkArgument(maxVocabulary > 0, "maxVocabulary must be positive, got %s", maxVocabulary);
+    this.maxVocabulary = maxVocabulary;
+    return this;
+  }
+
   /**
    * Enables placeholder tokens for whitespaces
    * <p>
@@ -64,8 +106,30 @@ public class TokenizerBuilder {
     return this;
   }
 
+  /**
+   * Sets a custom delimiter pattern. Delimiters are then matched through the regex engine,
+   * prefer {@link #withDelimiters(String)} when every delimiter is a single character.
+   *
+   * @param delimiter The delimiter pattern.
+   * @return Returns this instance for chaining
+   */
   public TokenizerBuilder withDelimiter(Pattern delimiter) {
     this.delimiter = delimiter;
+    this.delimiterChars = null;
+    return this;
+  }
+
+  /**
+   * Sets the delimiters to a set of single characters, which are matched through a lookup table
+   * instead of a regex.
+   *
+   * @param delimiters The delimiter characters, at least one.
+   * @return Returns this instance for chaining
+   */
+  public TokenizerBuilder withDelimiters(String delimiters) {
+    Preconditions.checkArgument(!delimiters.isEmpty(), "delimiters must not be empty");
+    this.delimiter = Pattern.compile("[" + Pattern.quote(delimiters) + "]");
+    this.delimiterChars = delimiters;
     return this;
   }
 
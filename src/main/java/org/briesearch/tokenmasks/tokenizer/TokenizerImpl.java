@@ -1,8 +1,6 @@
 package org.briesearch.tokenmasks.tokenizer;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -16,16 +14,25 @@ import java.util.regex.Matcher;
  */
 public class TokenizerImpl extends AbstractTokenizer implements Tokenizer {
 
-  private final Map<String, Integer> indices = new HashMap<>();
+  private final Vocabulary vocabulary;
 
   public TokenizerImpl(TokenizerBuilder builder) {
     super(builder);
+    this.vocabulary = new Vocabulary();
+    if (unknownToken)
+      vocabulary.add(UNKNOWN);
+  }
+
+  private TokenizerImpl(TokenizerImpl source, Vocabulary vocabulary) {
+    super(source, vocabulary.isFrozen());
+    this.vocabulary = vocabulary;
   }
 
   /**
    * Tokenizes the input text by splitting it into tokens based on defined delimiters.
    * Optionally, the tokens are converted to lowercase if the lowercaseTokens flag is set.
-   * It also performs recursive token splitting if a token is not found in the indices map.
+   * It also performs recursive token splitting if a token is not found in the vocabulary.
+   * Tokens that are part of the vocabulary reuse the vocabulary's strings.
    *
    * @param text The input text to tokenize.
    * @return A list of tokens extracted from the input text.
@@ -35,93 +42,169 @@ public class TokenizerImpl extends AbstractTokenizer implements Tokenizer {
     if (lowercaseTokens)
       text = text.toLowerCase();
 
+    String source = text;
     List<String> tokens = new ArrayList<>();
+    scan(source, (from, to, id) -> tokens.add(id >= 0 ? vocabulary.wordOf(id) : token(source, from, to)));
+
+    if (fitUponTokenization)
+      fit(tokens);
+
+    return tokens;
+  }
+
+  /**
+   * Tokenizes the input text straight into token indices, without creating strings for known tokens.
+   * Falls back to {@link #tokenize(String)} if unknown tokens are registered upon tokenization.
+   */
+  @Override
+  public int tokenizeIds(String text, int[] ids, int offset) {
+    if (fitUponTokenization)
+      return Tokenizer.super.tokenizeIds(text, ids, offset);
+
+    if (lowercaseTokens)
+      text = text.toLowerCase();
+
+    IdSink sink = new IdSink(ids, offset);
+    scan(text, sink);
+    return sink.count;
+  }
+
+  /**
+   * Splits the text into token spans. Simple tokens are whitespace separated, otherwise segments between delimiters
+   * are matched as a whole against the vocabulary first and segmented word by word if unknown. The last segment
+   * is always segmented word by word.
+   *
+   * @param text The text to scan.
+   * @param sink The consumer of the spans, in order.
+   */
+  private void scan(String text, SpanSink sink) {
+    int length = text.length();
     if (simpleTokens) {
-      String[] spl = text.split("\\s+");
-      Collections.addAll(tokens, spl);
-      if (fitUponTokenization)
-        fit(tokens);
-      return tokens;
+      words(text, 0, length, (from, to, id) -> sink.accept(from, to, vocabulary.indexOf(text, from, to)));
+      return;
     }
 
-    Matcher matcher = delimiter.matcher(text);
     int previousEnd = 0;
+    if (scanner != null) {
+      for (int i = 0; i < length; i++) {
+        if (!scanner.isDelimiter(text.charAt(i))) continue;
 
-    while (matcher.find()) {
-      if (matcher.start() > previousEnd) {
-        String token = text.substring(
-          previousEnd,
-          matcher.start()
-        ).trim();
-
-        if (!token.isEmpty()) {
-          if (indices.containsKey(token))
-            tokens.add(token);
-          else
-            recursiveSplitTokenSearch(
-              tokens,
-              token.split("\\s+")
-            );
-        }
+        segment(text, previousEnd, i, true, sink);
+        sink.accept(i, i + 1, vocabulary.indexOf(text, i, i + 1));
+        previousEnd = i + 1;
+      }
+    } else {
+      Matcher matcher = delimiter.matcher(text);
+      while (matcher.find()) {
+        segment(text, previousEnd, matcher.start(), true, sink);
+        sink.accept(matcher.start(), matcher.end(), vocabulary.indexOf(text, matcher.start(), matcher.end()));
+        previousEnd = matcher.end();
       }
+    }
 
-      String delimiter = matcher.group();
-      tokens.add(delimiter);
+    segment(text, previousEnd, length, false, sink);
+  }
 
-      previousEnd = matcher.end();
-    }
+  private void segment(String text, int from, int to, boolean matchWhole, SpanSink sink) {
+    // same bounds as String#trim
+    while (from < to && text.charAt(from) <= ' ') from++;
+    while (to > from && text.charAt(to - 1) <= ' ') to--;
+    if (from == to) return;
 
-    if (previousEnd < text.length()) {
-      String lastToken = text.substring(previousEnd).trim();
-      if (!lastToken.isEmpty())
-        recursiveSplitTokenSearch(
-          tokens,
-          lastToken.split("\\s+")
-        );
+    if (matchWhole) {
+      int id = vocabulary.indexOf(text, from, to);
+      if (id != -1) {
+        sink.accept(from, to, id);
+        return;
+      }
     }
 
-    if (fitUponTokenization)
-      fit(tokens);
+    words(text, from, to, (start, end, id) -> recursiveSplitTokenSearch(text, start, end, sink));
+  }
 
-    return tokens;
+  /**
+   * Emits the whitespace separated words of text[from, to), skipping empty words. The id passed on is always -1.
+   */
+  private static void words(String text, int from, int to, SpanSink sink) {
+    int start = -1;
+    for (int i = from; i < to; i++) {
+      if (DelimiterScanner.isWhitespace(text.charAt(i))) {
+        if (start >= 0) sink.accept(start, i, -1);
+        start = -1;
+      } else if (start < 0) {
+        start = i;
+      }
+    }
+    if (start >= 0) sink.accept(start, to, -1);
   }
 
   /**
-   * Recursively attempts to split a token into smaller sub-tokens if the original token is not found in the indices map.
-   * The splitting process continues until a match is found or no further split is possible.
+   * Segments a word that is not part of the vocabulary into known sub-tokens.
+   * The word is split greedily from the left, taking the longest known prefix at every position through the
+   * vocabulary trie. Once no known prefix starts at the current position, the remainder is kept as a single token.
    *
-   * @param tokens The list to which the valid tokens will be added.
-   * @param split The array of sub-tokens derived from attempting to split the original token.
+   * @param text The text holding the word.
+   * @param from The start of the word, inclusive.
+   * @param to The end of the word, exclusive.
+   * @param sink The consumer of the sub-token spans.
    */
-  void recursiveSplitTokenSearch(List<String> tokens, String[] split) {
-    for (String tok : split) {
-      int length = tok.length();
-      int recursiveIt = length;
-
-      boolean visited = false;
-      while (recursiveIt > 0) {
-        String subToken = tok.substring(0, recursiveIt);
-        if (indices.containsKey(subToken)) {
-          tokens.add(subToken);
-          visited = true;
-          if (recursiveIt < length)
-            tokens.add(
-              tok.substring(
-                recursiveIt,
-                length
-              ));
-          break;
-        }
-        recursiveIt--;
-      }
+  void recursiveSplitTokenSearch(CharSequence text, int from, int to, SpanSink sink) {
+    int position = from;
+    while (position < to) {
+      long match = vocabulary.longestPrefix(text, position, to);
+      if (match == -1) break;
 
-      if (!visited)
-        tokens.add(tok);
+      int length = (int) match;
+      sink.accept(position, position + length, (int) (match >>> 32));
+      position += length;
+    }
+
+    if (position < to)
+      sink.accept(position, to, -1);
+  }
+
+  private static String token(String text, int from, int to) {
+    if (to - from == 1 && text.charAt(from) < ASCII.length)
+      return ASCII[text.charAt(from)];
+    return text.substring(from, to);
+  }
+
+  private static final String[] ASCII = new String[128];
+
+  static {
+    for (char c = 0; c < ASCII.length; c++)
+      ASCII[c] = String.valueOf(c);
+  }
+
+  /**
+   * Receives a token as the span text[from, to) together with its vocabulary id, or -1 if it is unknown.
+   */
+  @FunctionalInterface
+  interface SpanSink {
+    void accept(int from, int to, int id);
+  }
+
+  private static final class IdSink implements SpanSink {
+
+    private final int[] ids;
+    private final int offset;
+    private int count;
+
+    IdSink(int[] ids, int offset) {
+      this.ids = ids;
+      this.offset = offset;
+    }
+
+    @Override
+    public void accept(int from, int to, int id) {
+      if (offset + count < ids.length)
+        ids[offset + count] = id;
+      count++;
     }
   }
 
   /**
-   * Retrieves the index of a specific token from the tokenizers indices.
+   * Retrieves the index of a specific token from the tokenizers vocabulary.
    * If the token is not found, returns -1.
    *
    * @param token The token whose index is to be retrieved.
@@ -132,11 +215,11 @@ public class TokenizerImpl extends AbstractTokenizer implements Tokenizer {
     if (lowercaseTokens)
       token = token.toLowerCase();
 
-    return indices.getOrDefault(token, -1);
+    return vocabulary.indexOf(token);
   }
 
   /**
-   * Retrieves the word associated with a specific index in the tokenizers indices map.
+   * Retrieves the word associated with a specific index in the tokenizers vocabulary.
    * If no word is found for the given index, returns null.
    *
    * @param index The index whose associated word is to be retrieved.
@@ -144,39 +227,79 @@ public class TokenizerImpl extends AbstractTokenizer implements Tokenizer {
    */
   @Override
   public String wordOf(int index) {
-    for (Map.Entry<String, Integer> entry : indices.entrySet()) {
-      if (entry.getValue() == index) return entry.getKey();
-    }
-    return null;
+    return vocabulary.wordOf(index);
   }
 
   /**
-   * Fits a single token to the tokenizer by adding it to the indices map if it is not already present.
+   * Fits a single token to the tokenizer by adding it to the vocabulary if it is not already present
+   * and the vocabulary is below its maximum size.
    * Optionally converts the token to lowercase before adding it, depending on the tokenizer settings.
    *
    * @param token The token to be added to the tokenizer's index.
+   * @throws UnsupportedOperationException If the tokenizer is frozen and the token is unknown.
    */
   @Override
   public void fit(String token) {
     token = lowercaseTokens ? token.toLowerCase() : token;
-    indices.putIfAbsent(
-      token,
-      indices.size()
-    );
+    vocabulary.add(token, maxVocabulary);
+  }
+
+  /**
+   * Fits counted tokens, the most frequent first, skipping tokens with less than the minimum frequency.
+   * Fitting stops once the vocabulary reaches its maximum size.
+   *
+   * @param counts The number of occurrences per token.
+   */
+  @Override
+  public void fit(Map<String, Long> counts) {
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.size());
+    for (Map.Entry<String, Long> entry : counts.entrySet())
+      if (entry.getValue() >= minFrequency)
+        entries.add(entry);
+    entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+
+    for (Map.Entry<String, Long> entry : entries) {
+      if (vocabulary.size() >= maxVocabulary) break;
+      fit(entry.getKey());
+    }
+  }
+
+  /**
+   * Computes the vocabulary size after {@link #fit(Map)}, applying the minimum frequency and the maximum size.
+   *
+   * @param counts The number of occurrences per token.
+   * @return The projected vocabulary size.
+   */
+  @Override
+  public int projectedSize(Map<String, Long> counts) {
+    int size = vocabulary.size();
+    Set<String> added = new HashSet<>();
+    for (Map.Entry<String, Long> entry : counts.entrySet()) {
+      if (size >= maxVocabulary) break;
+      String token = lowercaseTokens ? entry.getKey().toLowerCase() : entry.getKey();
+      if (entry.getValue() >= minFrequency && vocabulary.indexOf(token) == -1 && added.add(token))
+        size++;
+    }
+    return size;
+  }
+
+  @Override
+  public int unknownIndex() {
+    return unknownToken ? 0 : -1;
   }
 
   @Override
   public long countTotalCharacters() {
-    return indices.keySet()
-      .stream()
-      .mapToLong(String::length)
-      .sum();
+    long total = 0;
+    for (String word : vocabulary.words())
+      total += word.length();
+    return total;
   }
 
   @Override
   public long countCharacters() {
     Set<Character> chars = new HashSet<>();
-    indices.keySet()
+    vocabulary.words()
       .forEach(k -> {
         char[] arr = k.toCharArray();
         for (char c : arr) chars.add(c);
@@ -184,8 +307,23 @@ public class TokenizerImpl extends AbstractTokenizer implements Tokenizer {
     return chars.size();
   }
 
+  @Override
+  public int size() {
+    return vocabulary.size();
+  }
+
+  @Override
+  public Tokenizer freeze() {
+    return isFrozen() ? this : new TokenizerImpl(this, vocabulary.freeze());
+  }
+
+  @Override
+  public boolean isFrozen() {
+    return vocabulary.isFrozen();
+  }
+
   @Override
   public Map<String, Integer> asMap() {
-    return new HashMap<>(indices);
+    return vocabulary.asMap();
   }
 }
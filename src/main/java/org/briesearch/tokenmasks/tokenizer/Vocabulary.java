@@ -0,0 +1,314 @@
+package org.briesearch.tokenmasks.tokenizer;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Vocabulary is a bidirectional token index backing the tokenizer.
+ * Tokens are stored in a dense id to token array, while the reverse direction is resolved through an
+ * open-addressing hash table of primitive ints, so neither {@link #indexOf(String)} nor {@link #wordOf(int)}
+ * allocates or scans the vocabulary.
+ * <p>
+ * Lookups are lock-free and may run concurrently with a single writer: a new token is fully indexed before the
+ * size is published, lookups read the size first and ignore ids at or above it, so a reader either sees a
+ * fully registered token or none at all. A {@link #freeze() frozen} snapshot rejects new tokens altogether
+ * and can be shared freely between threads.
+ *
+ * @author Brissach
+ * @since 17.10.2026 09:12
+ * © token-masks - All Rights Reserved
+ */
+public class Vocabulary {
+
+  private static final int DEFAULT_CAPACITY = 64;
+
+  private volatile String[] words;
+  private volatile int[] hashes;
+  /* open-addressing slots holding id + 1, 0 marks an empty slot */
+  private volatile int[] slots;
+  private volatile int size;
+  private final TokenTrie trie = new TokenTrie();
+  private final boolean frozen;
+
+  public Vocabulary() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public Vocabulary(int capacity) {
+    this(capacity, false);
+  }
+
+  private Vocabulary(int capacity, boolean frozen) {
+    capacity = Math.max(capacity, 4);
+    words = new String[capacity];
+    hashes = new int[capacity];
+    slots = new int[tableSizeFor(capacity)];
+    this.frozen = frozen;
+  }
+
+  /**
+   * Retrieves the id of a token.
+   *
+   * @param token The token to look up.
+   * @return The id of the token, or -1 if the token is not part of the vocabulary.
+   */
+  public int indexOf(String token) {
+    int hash = mix(token.hashCode());
+    int count = size;
+    int[] table = slots;
+    String[] words = this.words;
+    int[] hashes = this.hashes;
+
+    int mask = table.length - 1;
+    for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+      int id = table[slot] - 1;
+      if (id < 0) return -1;
+      if (id < count && hashes[id] == hash && words[id].equals(token)) return id;
+    }
+  }
+
+  /**
+   * Retrieves the id of the token spelled by text[from, to) without creating a string for it.
+   *
+   * @param text The text holding the token.
+   * @param from The start of the token, inclusive.
+   * @param to The end of the token, exclusive.
+   * @return The id of the token, or -1 if the token is not part of the vocabulary.
+   */
+  public int indexOf(CharSequence text, int from, int to) {
+    int h = 0;
+    for (int i = from; i < to; i++)
+      h = 31 * h + text.charAt(i); // same as String#hashCode
+
+    int hash = mix(h);
+    int count = size;
+    int[] table = slots;
+    String[] words = this.words;
+    int[] hashes = this.hashes;
+
+    int mask = table.length - 1;
+    for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+      int id = table[slot] - 1;
+      if (id < 0) return -1;
+      if (id < count && hashes[id] == hash && matches(words[id], text, from, to)) return id;
+    }
+  }
+
+  private static boolean matches(String word, CharSequence text, int from, int to) {
+    if (word.length() != to - from) return false;
+    for (int i = 0; i < word.length(); i++)
+      if (word.charAt(i) != text.charAt(from + i)) return false;
+    return true;
+  }
+
+  /**
+   * Retrieves the token assigned to an id.
+   *
+   * @param index The id of the token.
+   * @return The token, or null if the id is out of range.
+   */
+  public String wordOf(int index) {
+    return index >= 0 && index < size ? words[index] : null;
+  }
+
+  /**
+   * Adds a token to the vocabulary if it is not already present.
+   *
+   * @param token The token to add.
+   * @return The id of the token.
+   * @throws UnsupportedOperationException If the vocabulary is frozen and the token is not present.
+   */
+  public int add(String token) {
+    return add(token, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Adds a token to the vocabulary if it is not already present and the vocabulary holds less than limit tokens.
+   *
+   * @param token The token to add.
+   * @param limit The largest number of tokens the vocabulary may hold after adding.
+   * @return The id of the token, or -1 if the token is not present and the vocabulary is full.
+   * @throws UnsupportedOperationException If the vocabulary is frozen and the token is not present.
+   */
+  public synchronized int add(String token, int limit) {
+    int hash = mix(token.hashCode());
+    int[] table = slots;
+    int mask = table.length - 1;
+    int slot = hash & mask;
+    for (; ; slot = (slot + 1) & mask) {
+      int id = table[slot] - 1;
+      if (id < 0) break;
+      if (hashes[id] == hash && words[id].equals(token)) return id;
+    }
+
+    if (frozen)
+      throw new UnsupportedOperationException("Vocabulary is frozen, cannot register '" + token + "'");
+
+    int id = size;
+    if (id >= limit)
+      return -1;
+    if (id == words.length) {
+      words = Arrays.copyOf(words, id << 1);
+      hashes = Arrays.copyOf(hashes, id << 1);
+    }
+
+    words[id] = token;
+    hashes[id] = hash;
+    trie.insert(token, id);
+
+    // keep the load factor at or below 0.5
+    if ((id + 1) << 1 > table.length)
+      rehash(table.length << 1, id + 1);
+    else
+      table[slot] = id + 1;
+
+    // publishes the token to concurrent readers
+    size = id + 1;
+    return id;
+  }
+
+  /**
+   * Finds the longest token that is a prefix of text[from, to), walking a character trie in a single pass
+   * without allocating.
+   *
+   * @param text The text to match against.
+   * @param from The start of the range, inclusive.
+   * @param to The end of the range, exclusive.
+   * @return The id of the token in the upper and its length in the lower 32 bits, or -1 if no token matches.
+   */
+  public long longestPrefix(CharSequence text, int from, int to) {
+    return trie.longestPrefix(text, from, to, size);
+  }
+
+  public boolean contains(String token) {
+    return indexOf(token) != -1;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  /**
+   * Creates an immutable snapshot of this vocabulary with the same ids.
+   *
+   * @return The frozen copy, or this instance if it is frozen already.
+   */
+  public synchronized Vocabulary freeze() {
+    if (frozen) return this;
+
+    int count = size;
+    Vocabulary snapshot = new Vocabulary(count, true);
+    System.arraycopy(words, 0, snapshot.words, 0, count);
+    System.arraycopy(hashes, 0, snapshot.hashes, 0, count);
+    for (int id = 0; id < count; id++)
+      snapshot.trie.insert(words[id], id);
+    snapshot.rehash(snapshot.slots.length, count);
+    snapshot.size = count;
+    return snapshot;
+  }
+
+  /**
+   * @return A read-only list view of the tokens ordered by id, backed by this vocabulary.
+   */
+  public List<String> words() {
+    return new AbstractList<String>() {
+      @Override
+      public String get(int index) {
+        if (index < 0 || index >= size)
+          throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return words[index];
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /**
+   * @return A read-only map view of token to id, backed by this vocabulary. No entries are copied.
+   */
+  public Map<String, Integer> asMap() {
+    return new AbstractMap<String, Integer>() {
+      @Override
+      public Integer get(Object key) {
+        if (!(key instanceof String)) return null;
+        int id = indexOf((String) key);
+        return id == -1 ? null : id;
+      }
+
+      @Override
+      public boolean containsKey(Object key) {
+        return key instanceof String && indexOf((String) key) != -1;
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+
+      @Override
+      public Set<Entry<String, Integer>> entrySet() {
+        return new AbstractSet<Entry<String, Integer>>() {
+          @Override
+          public Iterator<Entry<String, Integer>> iterator() {
+            return new Iterator<Entry<String, Integer>>() {
+              private int next;
+
+              @Override
+              public boolean hasNext() {
+                return next < size;
+              }
+
+              @Override
+              public Entry<String, Integer> next() {
+                if (next >= size) throw new NoSuchElementException();
+                int id = next++;
+                return new SimpleImmutableEntry<>(words[id], id);
+              }
+            };
+          }
+
+          @Override
+          public int size() {
+            return size;
+          }
+        };
+      }
+    };
+  }
+
+  private void rehash(int capacity, int count) {
+    int[] table = new int[capacity];
+    int[] hashes = this.hashes;
+    int mask = capacity - 1;
+    for (int id = 0; id < count; id++) {
+      int slot = hashes[id] & mask;
+      while (table[slot] != 0) slot = (slot + 1) & mask;
+      table[slot] = id + 1;
+    }
+    slots = table;
+  }
+
+  private static int tableSizeFor(int capacity) {
+    int n = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 2;
+    return Math.max(n, 8);
+  }
+
+  private static int mix(int hash) {
+    int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -1,5 +1,6 @@
 import io.arctis.aurora.ops.Kwargs;
 import org.briesearch.tokenmasks.Model;
+import org.briesearch.tokenmasks.metrics.Metrics;
 import org.briesearch.tokenmasks.tokenizer.Tokenizer;
 import org.briesearch.tokenmasks.tokenizer.TokenizerBuilder;
 
@@ -94,6 +95,7 @@ public class ModelTest {
       ));
 
     model.construct()
+      .metrics(Metrics.console())
       .forward(samples);
 
     double temperature = 1.0;
@@ -0,0 +1,243 @@
+package org.briesearch.tokenmasks;
+
+import io.arctis.aurora.ops.Kwargs;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Brissach
+ * @since 17.10.2026 14:45
+ * © token-masks - All Rights Reserved
+ */
+public class BatchPipelineTest {
+
+  private static final int[] DEPTHS = {1, 2, 4};
+  private static final int BATCH = 10;
+
+  private ExecutorService executor;
+  private Trainer trainer;
+
+  @Before
+  public void createTrainer() {
+    executor = Executors.newFixedThreadPool(4);
+    trainer = new Trainer(null, executor, new Kwargs("threads", 4));
+  }
+
+  @After
+  public void stopExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void deliversBatchesInSourceOrder() {
+    for (int depth : DEPTHS) {
+      BatchPipeline<Integer> pipeline = new BatchPipeline<>(new Echo(), trainer, BATCH, depth);
+      for (int pass = 0; pass < 3; pass++) {
+        Recorder recorder = new Recorder();
+        Source source = new Source(103, -1);
+        pipeline.pass(source, index -> false, true, recorder);
+
+        assertEquals("depth " + depth, range(0, 103), recorder.training);
+        assertEquals("depth " + depth, 11, recorder.batches);
+        assertEquals("depth " + depth, 3, recorder.lastSize);
+        assertEquals("depth " + depth, 1, recorder.marked);
+        assertEquals("depth " + depth, 11, recorder.markedAt);
+        assertTrue("depth " + depth, recorder.validation.isEmpty());
+        assertEquals("depth " + depth, 1, source.closed.get());
+      }
+    }
+  }
+
+  @Test
+  public void separatesHeldOutSamples() {
+    for (int depth : DEPTHS) {
+      BatchPipeline<Integer> pipeline = new BatchPipeline<>(new Echo(), trainer, BATCH, depth);
+      Recorder recorder = new Recorder();
+      pipeline.pass(new Source(100, -1), index -> index % 5 == 0, true, recorder);
+
+      List<Integer> training = new ArrayList<>(), validation = new ArrayList<>();
+      for (int i = 0; i < 100; i++)
+        (i % 5 == 0 ? validation : training).add(i);
+      assertEquals("depth " + depth, training, recorder.training);
+      assertEquals("depth " + depth, validation, recorder.validation);
+      assertEquals("depth " + depth, 1, recorder.marked);
+      assertEquals("depth " + depth, recorder.batches, recorder.markedAt);
+
+      Recorder skipping = new Recorder();
+      pipeline.pass(new Source(100, -1), index -> index % 5 == 0, false, skipping);
+      assertEquals("depth " + depth, training, skipping.training);
+      assertTrue("depth " + depth, skipping.validation.isEmpty());
+    }
+  }
+
+  @Test
+  public void propagatesFailuresOfTheSource() {
+    for (int depth : DEPTHS) {
+      BatchPipeline<Integer> pipeline = new BatchPipeline<>(new Echo(), trainer, BATCH, depth);
+      Recorder recorder = new Recorder();
+      Source source = new Source(100, 35);
+
+      IllegalStateException failure = assertThrows(
+        IllegalStateException.class, () -> pipeline.pass(source, index -> false, true, recorder)
+      );
+      assertEquals("depth " + depth, "sample 35", failure.getMessage());
+      assertEquals("depth " + depth, range(0, 30), recorder.training);
+      assertEquals("depth " + depth, 1, source.closed.get());
+    }
+  }
+
+  @Test
+  public void propagatesFailuresOfTheEncoder() {
+    for (int depth : DEPTHS) {
+      Echo failing = new Echo() {
+        @Override
+        public void encode(int row, Integer sample, double[] input, double[] output) {
+          if (sample == 57) throw new IllegalArgumentException("cannot encode " + sample);
+          super.encode(row, sample, input, output);
+        }
+      };
+      BatchPipeline<Integer> pipeline = new BatchPipeline<>(failing, trainer, BATCH, depth);
+      Recorder recorder = new Recorder();
+
+      IllegalArgumentException failure = assertThrows(
+        IllegalArgumentException.class, () -> pipeline.pass(new Source(100, -1), index -> false, true, recorder)
+      );
+      assertEquals("depth " + depth, "cannot encode 57", failure.getMessage());
+      assertEquals("depth " + depth, range(0, 50), recorder.training);
+    }
+  }
+
+  @Test
+  public void reportsFailuresOfTheConsumerAndStopsReading() {
+    for (int depth : DEPTHS) {
+      BatchPipeline<Integer> pipeline = new BatchPipeline<>(new Echo(), trainer, BATCH, depth);
+      UnsupportedOperationException thrown = new UnsupportedOperationException("sink");
+      BatchPipeline.Sink sink = (inputs, outputs, validation, last) -> {
+        throw thrown;
+      };
+      Source source = new Source(10_000, -1);
+
+      UnsupportedOperationException failure = assertThrows(
+        UnsupportedOperationException.class, () -> pipeline.pass(source, index -> false, true, sink)
+      );
+      assertSame("depth " + depth, thrown, failure);
+      assertTrue("depth " + depth, source.read.get() < 10_000);
+      assertEquals("depth " + depth, 1, source.closed.get());
+    }
+  }
+
+  private static List<Integer> range(int from, int to) {
+    List<Integer> values = new ArrayList<>();
+    for (int i = from; i < to; i++)
+      values.add(i);
+    return values;
+  }
+
+  /**
+   * Writes a sample into the first input slot and its row index into the first output slot.
+   */
+  private static class Echo implements Trainer.BatchEncoder<Integer> {
+
+    @Override
+    public int inputWidth() {
+      return 1;
+    }
+
+    @Override
+    public int outputWidth() {
+      return 1;
+    }
+
+    @Override
+    public void encode(int row, Integer sample, double[] input, double[] output) {
+      input[0] = sample;
+      output[0] = row;
+    }
+  }
+
+  /**
+   * Copies the samples of every batch, the rows are reused once the sink returns.
+   */
+  private static final class Recorder implements BatchPipeline.Sink {
+
+    private final List<Integer> training = new ArrayList<>();
+    private final List<Integer> validation = new ArrayList<>();
+    private int batches;
+    private int lastSize;
+    private int marked;
+    private int markedAt;
+
+    @Override
+    public void accept(double[][] inputs, double[][] outputs, boolean held, boolean last) {
+      assertEquals(inputs.length, outputs.length);
+      for (double[] input : inputs)
+        (held ? validation : training).add((int) input[0]);
+      if (!held) {
+        batches++;
+        lastSize = inputs.length;
+      }
+      if (last) {
+        marked++;
+        markedAt = batches;
+      }
+    }
+  }
+
+  /**
+   * The samples 0 to count - 1, failing when the sample failAt is read, with a closeable iterator.
+   */
+  private static final class Source implements Iterable<Integer> {
+
+    private final int count;
+    private final int failAt;
+    private final AtomicInteger read = new AtomicInteger();
+    private final AtomicInteger closed = new AtomicInteger();
+
+    Source(int count, int failAt) {
+      this.count = count;
+      this.failAt = failAt;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+      return new Cursor();
+    }
+
+    private final class Cursor implements Iterator<Integer>, AutoCloseable {
+
+      private int next;
+
+      @Override
+      public boolean hasNext() {
+        return next < count;
+      }
+
+      @Override
+      public Integer next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        if (next == failAt) throw new IllegalStateException("sample " + next);
+        read.incrementAndGet();
+        return next++;
+      }
+
+      @Override
+      public void close() {
+        closed.incrementAndGet();
+      }
+    }
+  }
+}
@@ -0,0 +1,187 @@
+package org.briesearch.tokenmasks;
+
+import io.arctis.aurora.ops.Kwargs;
+import org.briesearch.tokenmasks.tokenizer.AbstractTokenizer;
+import org.briesearch.tokenmasks.tokenizer.Tokenizer;
+import org.briesearch.tokenmasks.tokenizer.TokenizerBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Brissach
+ * @since 17.10.2026 10:20
+ * © token-masks - All Rights Reserved
+ */
+public class CheckpointTest {
+
+  private Path file;
+
+  @Before
+  public void createFile() throws IOException {
+    file = Files.createTempFile("token-masks", ".ckpt");
+  }
+
+  @After
+  public void deleteFile() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Test
+  public void restoresTheTokenizerSettingsAndPredictions() throws IOException {
+    Map<String, String> samples = samples();
+    Tokenizer tokenizer = new TokenizerBuilder()
+      .simpleTokens()
+      .lowercaseTokens()
+      .withDelimiters(",;")
+      .unknownToken()
+      .build();
+    Model model = new Model(tokenizer, samples, new Kwargs("n_vocab", 8)).construct();
+    assertTrue("network is not serializable", model.network() instanceof Serializable);
+    model.forward(samples);
+    model.save(file);
+
+    Model restored = Model.load(file);
+    AbstractTokenizer settings = (AbstractTokenizer) restored.tokenizer();
+    assertTrue(settings.simpleTokens());
+    assertTrue(settings.lowercaseTokens());
+    assertEquals(",;", settings.delimiterChars());
+    assertTrue(settings.unknownToken());
+    assertEquals(tokenizer.asMap(), restored.tokenizer().asMap());
+    for (String text : samples.keySet())
+      assertArrayEquals(model.predict(text), restored.predict(text), 0.0);
+  }
+
+  @Test
+  public void keepsTheDefaultDelimiters() throws IOException {
+    Map<String, String> samples = samples();
+    Model model = new Model(new TokenizerBuilder().build(), samples, new Kwargs("n_vocab", 8)).construct();
+    assertTrue("network is not serializable", model.network() instanceof Serializable);
+    model.save(file);
+
+    AbstractTokenizer settings = (AbstractTokenizer) Model.load(file).tokenizer();
+    assertEquals(Tokenizer.DELIMITER, settings.delimiter());
+    assertNull(settings.delimiterChars());
+    assertFalse(settings.lowercaseTokens());
+  }
+
+  @Test
+  public void rejectsATokenizerSplittingDifferently() throws IOException {
+    Map<String, String> samples = samples();
+    Model model = new Model(new TokenizerBuilder().lowercaseTokens().build(), samples, new Kwargs("n_vocab", 8))
+      .construct();
+    assertTrue("network is not serializable", model.network() instanceof Serializable);
+    model.save(file);
+
+    IOException error = assertThrows(IOException.class, () -> Model.load(file, new TokenizerBuilder().build()));
+    assertTrue(error.getMessage(), error.getMessage().contains("lowercase"));
+    Model.load(file, new TokenizerBuilder().lowercaseTokens().build());
+  }
+
+  @Test
+  public void permitsEveryClassOfATrainedNetwork() throws IOException, ClassNotFoundException {
+    Map<String, String> samples = samples();
+    Model model = new Model(new TokenizerBuilder().build(), samples, new Kwargs("n_vocab", 8)).construct();
+    assertTrue("network is not serializable", model.network() instanceof Serializable);
+    model.forward(samples);
+
+    byte[] bytes = Checkpoint.serialize(model.network());
+    Set<String> resolved = new TreeSet<>();
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes)) {
+      @Override
+      protected Class<?> resolveClass(ObjectStreamClass descriptor) throws IOException, ClassNotFoundException {
+        resolved.add(descriptor.getName());
+        return super.resolveClass(descriptor);
+      }
+    }) {
+      in.readObject();
+    }
+
+    assertFalse(resolved.isEmpty());
+    for (String name : resolved)
+      assertTrue(name, Checkpoint.permitted(name));
+    assertEquals(model.network().getClass(), Checkpoint.deserialize(ByteBuffer.wrap(bytes)).getClass());
+  }
+
+  @Test
+  public void permitsContainersOfPermittedClasses() throws IOException {
+    Map<String, Object> values = new HashMap<>();
+    values.put("weights", new Object[]{new double[]{0.5}, new ArrayList<>(Arrays.asList(1, 2))});
+    values.put("names", new TreeSet<>(Arrays.asList("a", "b")));
+
+    IOException error = assertThrows(IOException.class, () -> Checkpoint.deserialize(section(values)));
+    assertTrue(String.valueOf(error.getCause()), error.getCause() instanceof ClassCastException);
+  }
+
+  @Test
+  public void rejectsClassesOutsideTheNetworkSection() throws IOException {
+    Map<String, Object> values = new HashMap<>();
+    values.put("gadget", new Gadget());
+
+    assertThrows(InvalidClassException.class, () -> Checkpoint.deserialize(section(values)));
+  }
+
+  @Test
+  public void permitsOnlyAuroraValueAndContainerClasses() {
+    assertTrue(Checkpoint.permitted("io.arctis.aurora_deep.MultiLayerNeuralNetwork"));
+    assertTrue(Checkpoint.permitted("[[D"));
+    assertTrue(Checkpoint.permitted("[Ljava.lang.Double;"));
+    assertTrue(Checkpoint.permitted("[Ljava.lang.Object;"));
+    assertTrue(Checkpoint.permitted("java.util.HashMap"));
+    assertTrue(Checkpoint.permitted("java.lang.invoke.SerializedLambda"));
+    assertFalse(Checkpoint.permitted("io.arctis.aurora_evil.Gadget"));
+    assertFalse(Checkpoint.permitted("org.apache.commons.collections.functors.InvokerTransformer"));
+    assertFalse(Checkpoint.permitted("javax.management.BadAttributeValueExpException"));
+    assertFalse(Checkpoint.permitted("[Ljava.net.URL;"));
+    assertFalse(Checkpoint.permitted("[X"));
+  }
+
+  private static ByteBuffer section(Object value) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(value);
+    }
+    return ByteBuffer.wrap(bytes.toByteArray());
+  }
+
+  private static Map<String, String> samples() {
+    Map<String, String> samples = new LinkedHashMap<>();
+    samples.put("hello how MASK you", "are");
+    samples.put("what are you MASK", "doing");
+    samples.put("the MASK is ringing", "phone");
+    return samples;
+  }
+
+  /**
+   * A serializable class outside of the network section.
+   */
+  private static final class Gadget implements Serializable {
+    private static final long serialVersionUID = 1L;
+  }
+}
@@ -0,0 +1,201 @@
+package org.briesearch.tokenmasks;
+
+import org.briesearch.tokenmasks.tokenizer.Tokenizer;
+import org.briesearch.tokenmasks.tokenizer.TokenizerBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Brissach
+ * @since 17.10.2026 15:40
+ * © token-masks - All Rights Reserved
+ */
+public class CompiledCorpusTest {
+
+  private static final String[] WORDS = {"hello", "how", "are", "you", "the", "phone", "is", "ringing", "MASK"};
+
+  private Path root;
+  private Path directory;
+  private Tokenizer tokenizer;
+
+  @Before
+  public void createDirectory() throws IOException {
+    root = Files.createTempDirectory("compiled-corpus");
+    directory = root.resolve("corpus");
+    tokenizer = new TokenizerBuilder().fitUponTokenization().build();
+    tokenizer.fit(WORDS);
+  }
+
+  @After
+  public void deleteDirectory() throws IOException {
+    try (Stream<Path> stream = Files.walk(root)) {
+      for (Path path : stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+        Files.delete(path);
+    }
+  }
+
+  @Test
+  public void readsBackTheCompiledIds() throws IOException {
+    List<String> sentences = sentences(25);
+    sentences.add(12, "");
+    CompiledCorpus compiled = CompiledCorpus.compile(tokenizer, sentences, directory, 4);
+    CompiledCorpus opened = CompiledCorpus.open(directory);
+
+    assertEquals(26, opened.sentences());
+    assertEquals(7, shardNames().size());
+    assertEquals(compiled.fingerprint(), opened.fingerprint());
+    assertEquals(tokenizer.size(), opened.vocabulary());
+    assertTrue(opened.matches(tokenizer));
+
+    List<TokenizedSample> samples = list(opened.masked(tokenizer.indexOf(Model.MASK), 24L, 1, 0));
+    assertEquals(25, samples.size());
+    for (int i = 0; i < samples.size(); i++) {
+      String sentence = sentences.get(i < 12 ? i : i + 1);
+      assertArrayEquals(sentence, ids(sentence), unmask(samples.get(i), tokenizer.indexOf(Model.MASK)));
+    }
+  }
+
+  @Test
+  public void rejectsTokenizersOfAnotherVocabulary() throws IOException {
+    CompiledCorpus corpus = CompiledCorpus.compile(tokenizer, sentences(10), directory, 4);
+
+    Tokenizer grown = new TokenizerBuilder().build();
+    grown.fit(WORDS);
+    grown.fit("later");
+    assertTrue(corpus.matches(grown));
+
+    Tokenizer other = new TokenizerBuilder().build();
+    other.fit("how", "hello", "are", "you", "the", "phone", "is", "ringing", "MASK");
+    assertFalse(corpus.matches(other));
+  }
+
+  @Test
+  public void masksEveryPassAnewAndReproducibly() throws IOException {
+    CompiledCorpus corpus = CompiledCorpus.compile(tokenizer, sentences(50), directory, 16);
+    int maskId = tokenizer.indexOf(Model.MASK);
+
+    Iterable<TokenizedSample> first = corpus.masked(maskId, 24L, 3, 0);
+    assertEquals(list(first), list(first));
+    assertEquals(list(first), list(corpus.masked(maskId, 24L, 3, 0)));
+    assertNotEquals(list(first), list(corpus.masked(maskId, 24L, 3, 1)));
+    assertNotEquals(list(first), list(corpus.masked(maskId, 7L, 3, 0)));
+  }
+
+  @Test
+  public void replacesAnEarlierCompilation() throws IOException {
+    CompiledCorpus.compile(tokenizer, sentences(30), directory, 4);
+    CompiledCorpus corpus = CompiledCorpus.compile(tokenizer, sentences(6), directory, 4);
+
+    assertEquals(6, corpus.sentences());
+    assertEquals(Arrays.asList("shard-00000.bin", "shard-00001.bin"), shardNames());
+    assertEquals(Arrays.asList("corpus"), names(root));
+  }
+
+  @Test
+  public void keepsTheEarlierCompilationIfTheVocabularyGrows() throws IOException {
+    CompiledCorpus.compile(tokenizer, sentences(30), directory, 4);
+    List<String> before = shardNames();
+    int size = tokenizer.size();
+
+    AtomicInteger read = new AtomicInteger();
+    List<String> sentences = sentences(40);
+    sentences.set(10, "hello unseen");
+    Iterable<String> counted = () -> {
+      Iterator<String> iterator = sentences.iterator();
+      return new Iterator<String>() {
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public String next() {
+          read.incrementAndGet();
+          return iterator.next();
+        }
+      };
+    };
+
+    assertThrows(IllegalStateException.class, () -> CompiledCorpus.compile(tokenizer, counted, directory, 4));
+    assertEquals(12, read.get());
+    assertEquals(size + 1, tokenizer.size());
+    assertEquals(before, shardNames());
+    assertEquals(30, CompiledCorpus.open(directory).sentences());
+    assertEquals(Arrays.asList("corpus"), names(root));
+  }
+
+  @Test
+  public void refusesToReplaceOtherFiles() throws IOException {
+    Files.createDirectories(directory);
+    Files.write(directory.resolve("notes.txt"), new byte[]{1});
+
+    assertThrows(IOException.class, () -> CompiledCorpus.compile(tokenizer, sentences(5), directory, 4));
+    assertEquals(Arrays.asList("notes.txt"), names(directory));
+    assertEquals(Arrays.asList("corpus"), names(root));
+  }
+
+  private List<String> sentences(int count) {
+    List<String> sentences = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      StringBuilder sentence = new StringBuilder();
+      for (int w = 0; w < 2 + i % 5; w++)
+        sentence.append(w > 0 ? " " : "").append(WORDS[(i * 7 + w * 3) % (WORDS.length - 1)]);
+      sentences.add(sentence.toString());
+    }
+    return sentences;
+  }
+
+  private int[] ids(String sentence) {
+    List<String> tokens = tokenizer.tokenize(sentence);
+    int[] ids = new int[tokens.size()];
+    for (int i = 0; i < ids.length; i++)
+      ids[i] = tokenizer.indexOf(tokens.get(i));
+    return ids;
+  }
+
+  private static int[] unmask(TokenizedSample sample, int maskId) {
+    int[] tokens = sample.tokens().clone();
+    int target = 0;
+    for (int i = 0; i < tokens.length; i++)
+      if (tokens[i] == maskId)
+        tokens[i] = sample.targets()[target++];
+    assertEquals(sample.targets().length, target);
+    return tokens;
+  }
+
+  private static <T> List<T> list(Iterable<T> source) {
+    List<T> list = new ArrayList<>();
+    source.forEach(list::add);
+    return list;
+  }
+
+  private List<String> shardNames() throws IOException {
+    return names(directory);
+  }
+
+  private static List<String> names(Path directory) throws IOException {
+    try (Stream<Path> stream = Files.list(directory)) {
+      return stream.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+    }
+  }
+}
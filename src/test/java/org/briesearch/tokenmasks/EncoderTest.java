@@ -0,0 +1,85 @@
+package org.briesearch.tokenmasks;
+
+import org.briesearch.tokenmasks.tokenizer.Tokenizer;
+import org.briesearch.tokenmasks.tokenizer.TokenizerBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * @author Brissach
+ * @since 17.10.2026 15:10
+ * © token-masks - All Rights Reserved
+ */
+public class EncoderTest {
+
+  private static final String[] TEXTS = {"hello how are you", "the phone is ringing", "hello unseen you", "are"};
+
+  @Test
+  public void encodesIdsThroughTheTextEncodingByDefault() {
+    for (Tokenizer tokenizer : tokenizers()) {
+      for (Encoder encoder : new Encoder[]{new PositionalEncoder(), new OneHotEncoder()}) {
+        Encoder textOnly = textOnly(encoder);
+        for (int n_tokens : new int[]{tokenizer.size(), tokenizer.size() + 3, 4}) {
+          for (String text : TEXTS) {
+            int[] ids = new int[8];
+            int length = tokenizer.tokenizeIds(text, ids, 0);
+            assertArrayEquals(
+              text + " " + n_tokens,
+              encode(encoder, tokenizer, ids, length, n_tokens),
+              encode(textOnly, tokenizer, ids, length, n_tokens),
+              0.0
+            );
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void clearsThePreviousEncodingByDefault() {
+    Tokenizer tokenizer = tokenizers()[1];
+    Encoder textOnly = textOnly(new PositionalEncoder());
+    int n_tokens = tokenizer.size();
+    double[] values = new double[textOnly.dimension(n_tokens, 6)];
+    EncodedRow row = EncodedRow.of(values);
+
+    int[] ids = new int[8];
+    textOnly.encode(tokenizer, ids, tokenizer.tokenizeIds(TEXTS[1], ids, 0), n_tokens, 6, row);
+    int length = tokenizer.tokenizeIds(TEXTS[3], ids, 0);
+    textOnly.encode(tokenizer, ids, length, n_tokens, 6, row);
+
+    assertArrayEquals(encode(new PositionalEncoder(), tokenizer, ids, length, n_tokens), values, 0.0);
+  }
+
+  /**
+   * Hides the id encoding of an encoder, so the default one applies.
+   */
+  private static Encoder textOnly(Encoder encoder) {
+    return new Encoder() {
+      @Override
+      public double[] encode(Tokenizer tokenizer, String text, int n_vocab) {
+        return encoder.encode(tokenizer, text, n_vocab);
+      }
+
+      @Override
+      public int dimension(int n_tokens, int n_vocab) {
+        return encoder.dimension(n_tokens, n_vocab);
+      }
+    };
+  }
+
+  private static double[] encode(Encoder encoder, Tokenizer tokenizer, int[] ids, int length, int n_tokens) {
+    double[] values = new double[encoder.dimension(n_tokens, 6)];
+    encoder.encode(tokenizer, ids, length, n_tokens, 6, EncodedRow.of(values));
+    return values;
+  }
+
+  private static Tokenizer[] tokenizers() {
+    Tokenizer plain = new TokenizerBuilder().build();
+    Tokenizer unknown = new TokenizerBuilder().unknownToken().build();
+    for (Tokenizer tokenizer : new Tokenizer[]{plain, unknown})
+      tokenizer.fit("hello", "how", "are", "you", "the", "phone", "is", "ringing");
+    return new Tokenizer[]{plain.freeze(), unknown.freeze()};
+  }
+}
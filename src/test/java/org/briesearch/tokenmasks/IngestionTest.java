@@ -0,0 +1,163 @@
+package org.briesearch.tokenmasks;
+
+import org.briesearch.tokenmasks.tokenizer.Tokenizer;
+import org.briesearch.tokenmasks.tokenizer.TokenizerBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Brissach
+ * @since 17.10.2026 13:20
+ * © token-masks - All Rights Reserved
+ */
+public class IngestionTest {
+
+  private static final String[] WORDS = {"hello", "how", "are", "you", "the", "phone", "is", "ringing", "what", "doing"};
+
+  private ExecutorService executor;
+
+  @Before
+  public void startExecutor() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void stopExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void countsInParallelLikeSequentially() {
+    SampleSource samples = SampleSource.of(samples(3 * Ingestion.SHARD + 17));
+    Map<String, Long> parallel = Ingestion.count(new TokenizerBuilder().build(), samples, executor, 4);
+    Map<String, Long> sequential = Ingestion.count(new TokenizerBuilder().build(), samples, null, 1);
+
+    assertEquals(sequential, parallel);
+    assertEquals(new ArrayList<>(sequential.keySet()), new ArrayList<>(parallel.keySet()));
+  }
+
+  @Test
+  public void countsTokenizersThatCannotFreezeLikeOthers() {
+    SampleSource samples = SampleSource.of(samples(Ingestion.SHARD + 5));
+    Map<String, Long> frozen = Ingestion.count(new TokenizerBuilder().simpleTokens().build(), samples, executor, 4);
+    Map<String, Long> fitted = Ingestion.count(
+      new Unfreezable(new TokenizerBuilder().simpleTokens().build()), samples, executor, 4
+    );
+
+    assertEquals(frozen, fitted);
+  }
+
+  @Test
+  public void fitsTheSameVocabularyInParallel() {
+    SampleSource samples = SampleSource.of(samples(2 * Ingestion.SHARD));
+    Tokenizer parallel = Ingestion.fit(new TokenizerBuilder().build(), samples, executor, 4);
+    Tokenizer sequential = Ingestion.fit(new TokenizerBuilder().build(), samples, null, 1);
+
+    assertEquals(sequential.asMap(), parallel.asMap());
+  }
+
+  @Test
+  public void projectsTheSizeOfTheFittedVocabulary() {
+    SampleSource samples = SampleSource.of(samples(Ingestion.SHARD));
+    Tokenizer[] tokenizers = {
+      new TokenizerBuilder().build(),
+      new TokenizerBuilder().lowercaseTokens().minFrequency(Ingestion.SHARD).build(),
+      new TokenizerBuilder().maxVocabulary(6).build(),
+      new Unfreezable(new TokenizerBuilder().simpleTokens().build())
+    };
+    for (Tokenizer tokenizer : tokenizers) {
+      tokenizer.fit("hello", "unrelated");
+      Map<String, Long> counts = Ingestion.count(tokenizer, samples, null, 1);
+      int projected = tokenizer.projectedSize(counts);
+      tokenizer.fit(counts);
+      assertEquals(tokenizer.asMap().toString(), tokenizer.size(), projected);
+    }
+  }
+
+  @Test
+  public void masksInParallelLikeSequentially() {
+    List<String> sentences = new ArrayList<>();
+    for (Sample sample : samples(2 * Ingestion.SHARD + 3))
+      sentences.add(sample.unmasked("MASK"));
+
+    List<Sample> parallel = Ingestion.mask(sentences, "MASK", 24L, 3, executor, 4);
+    List<Sample> sequential = Ingestion.mask(sentences, "MASK", 24L, 3, null, 1);
+
+    assertEquals(sentences.size(), parallel.size());
+    assertEquals(sequential, parallel);
+    for (int i = 0; i < sentences.size(); i += 101)
+      assertEquals(sentences.get(i), parallel.get(i).unmasked("MASK"));
+  }
+
+  private static List<Sample> samples(int count) {
+    SplittableRandom random = new SplittableRandom(5);
+    List<Sample> samples = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      StringBuilder masked = new StringBuilder();
+      int length = 3 + random.nextInt(5), mask = random.nextInt(length);
+      for (int w = 0; w < length; w++) {
+        if (w > 0) masked.append(' ');
+        masked.append(w == mask ? "MASK" : WORDS[random.nextInt(WORDS.length)] + (random.nextInt(50) == 0 ? i : ""));
+      }
+      samples.add(new Sample(masked.toString(), WORDS[random.nextInt(WORDS.length)]));
+    }
+    return samples;
+  }
+
+  /**
+   * Hides the freezing support of a tokenizer, so tokens are counted on the calling thread.
+   */
+  private static final class Unfreezable implements Tokenizer {
+
+    private final Tokenizer delegate;
+
+    Unfreezable(Tokenizer delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public List<String> tokenize(String text) {
+      return delegate.tokenize(text);
+    }
+
+    @Override
+    public int indexOf(String token) {
+      return delegate.indexOf(token);
+    }
+
+    @Override
+    public String wordOf(int index) {
+      return delegate.wordOf(index);
+    }
+
+    @Override
+    public void fit(String token) {
+      delegate.fit(token);
+    }
+
+    @Override
+    public long countTotalCharacters() {
+      return delegate.countTotalCharacters();
+    }
+
+    @Override
+    public long countCharacters() {
+      return delegate.countCharacters();
+    }
+
+    @Override
+    public Map<String, Integer> asMap() {
+      return delegate.asMap();
+    }
+  }
+}
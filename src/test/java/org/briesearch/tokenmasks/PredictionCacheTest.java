@@ -0,0 +1,131 @@
+package org.briesearch.tokenmasks;
+
+import org.briesearch.tokenmasks.tokenizer.Tokenizer;
+import org.briesearch.tokenmasks.tokenizer.TokenizerBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Brissach
+ * @since 17.10.2026 13:55
+ * © token-masks - All Rights Reserved
+ */
+public class PredictionCacheTest {
+
+  private Tokenizer tokenizer;
+  private AtomicInteger calls;
+  private Function<String, double[]> predictor;
+
+  @Before
+  public void createTokenizer() {
+    tokenizer = new TokenizerBuilder().simpleTokens().lowercaseTokens().build();
+    for (int i = 0; i < 100; i++)
+      tokenizer.fit("w" + i);
+    calls = new AtomicInteger();
+    predictor = text -> {
+      calls.incrementAndGet();
+      return new double[]{text.length()};
+    };
+  }
+
+  @Test
+  public void servesRepeatedTextsFromTheCache() {
+    PredictionCache cache = new PredictionCache(10);
+    double[] first = cache.get(tokenizer, "w1 w2", 0, predictor);
+    double[] second = cache.get(tokenizer, "w1 w2", 0, predictor);
+
+    assertSame(first, second);
+    assertEquals(1, calls.get());
+    assertEquals(1, cache.hits());
+    assertEquals(1, cache.misses());
+    assertEquals(0.5, cache.hitRate(), 0.0);
+  }
+
+  @Test
+  public void sharesEntriesOfTextsWithTheSameIds() {
+    PredictionCache cache = new PredictionCache(10);
+    double[] lower = cache.get(tokenizer, "w1 w2", 0, predictor);
+    assertSame(lower, cache.get(tokenizer, "W1 W2", 0, predictor));
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void evictsTheLeastRecentlyUsedEntry() {
+    PredictionCache cache = new PredictionCache(10);
+    for (int i = 0; i < 11; i++)
+      cache.get(tokenizer, "w" + i, 0, predictor);
+
+    assertEquals(10, cache.size());
+    assertEquals(1, cache.evictions());
+
+    cache.get(tokenizer, "w10", 0, predictor);
+    assertEquals(11, calls.get());
+    cache.get(tokenizer, "w0", 0, predictor);
+    assertEquals(12, calls.get());
+  }
+
+  @Test
+  public void keepsFrequentEntriesThroughAScan() {
+    PredictionCache cache = new PredictionCache(10);
+    for (int round = 0; round < 2; round++)
+      for (int i = 0; i < 5; i++)
+        cache.get(tokenizer, "w" + i, 0, predictor);
+
+    for (int i = 50; i < 100; i++)
+      cache.get(tokenizer, "w" + i, 0, predictor);
+
+    int before = calls.get();
+    for (int i = 0; i < 5; i++)
+      cache.get(tokenizer, "w" + i, 0, predictor);
+    assertEquals(before, calls.get());
+    assertEquals(10, cache.size());
+  }
+
+  @Test
+  public void dropsEntriesOfAnOlderGeneration() {
+    PredictionCache cache = new PredictionCache(10);
+    double[] old = cache.get(tokenizer, "w1", 0, predictor);
+    double[] current = cache.get(tokenizer, "w1", 1, predictor);
+
+    assertNotSame(old, current);
+    assertEquals(2, calls.get());
+    assertEquals(1, cache.size());
+
+    // outputs computed under an outdated stamp are returned but never stored
+    cache.get(tokenizer, "w2", 0, predictor);
+    cache.get(tokenizer, "w2", 0, predictor);
+    assertEquals(4, calls.get());
+    assertSame(current, cache.get(tokenizer, "w1", 1, predictor));
+  }
+
+  @Test
+  public void dropsEntriesOnceTheVocabularyGrows() {
+    PredictionCache cache = new PredictionCache(10);
+    cache.get(tokenizer, "w1", 0, predictor);
+    tokenizer.fit("fresh");
+    cache.get(tokenizer, "w1", 0, predictor);
+
+    assertEquals(2, calls.get());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void dropsEverythingOnInvalidate() {
+    PredictionCache cache = new PredictionCache(200);
+    for (int i = 0; i < 100; i++)
+      cache.get(tokenizer, "w" + i, 0, predictor);
+    assertEquals(100, cache.size());
+
+    cache.invalidate();
+    assertEquals(0, cache.size());
+    cache.get(tokenizer, "w1", 0, predictor);
+    assertEquals(101, calls.get());
+  }
+}
@@ -0,0 +1,96 @@
+package org.briesearch.tokenmasks;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * @author Brissach
+ * @since 17.10.2026 13:05
+ * © token-masks - All Rights Reserved
+ */
+public class SentenceMaskerTest {
+
+  private static final String SENTENCE = "the quick brown fox jumps over the lazy dog";
+
+  @Test
+  public void masksDeterministicallyForASeed() {
+    SentenceMasker first = new SentenceMasker(24L, "MASK");
+    SentenceMasker second = new SentenceMasker(24L, "MASK");
+    for (int i = 0; i < 100; i++)
+      assertArrayEquals(first.mask(SENTENCE, 1 + i % 3), second.mask(SENTENCE, 1 + i % 3));
+  }
+
+  @Test
+  public void masksDifferentlyForAnotherSeed() {
+    SentenceMasker first = new SentenceMasker(24L, "MASK");
+    SentenceMasker second = new SentenceMasker(25L, "MASK");
+    String[] a = new String[20], b = new String[20];
+    for (int i = 0; i < a.length; i++) {
+      a[i] = first.mask(SENTENCE)[0];
+      b[i] = second.mask(SENTENCE)[0];
+    }
+    assertNotEquals(Arrays.asList(a), Arrays.asList(b));
+  }
+
+  @Test
+  public void replacesOneWordWithTheMask() {
+    String[] masked = new SentenceMasker(7L, "MASK").mask(SENTENCE);
+    assertEquals(1, SentenceMasker.count(masked[0], "MASK"));
+    assertEquals(SENTENCE, SentenceMasker.fill(masked[0], "MASK", masked[1]));
+  }
+
+  @Test
+  public void masksDistinctWordsInSentenceOrder() {
+    SentenceMasker masker = new SentenceMasker(3L, "MASK");
+    for (int i = 0; i < 50; i++) {
+      String[] masked = masker.mask(SENTENCE, 4);
+      assertEquals(4, SentenceMasker.count(masked[0], "MASK"));
+      assertEquals(SENTENCE, SentenceMasker.fill(masked[0], "MASK", masked[1].split(" ")));
+    }
+  }
+
+  @Test
+  public void capsTheMasksAtTheSentenceLength() {
+    String[] masked = new SentenceMasker(1L, "MASK").mask("hello there", 5);
+    assertEquals("MASK MASK", masked[0]);
+    assertEquals("hello there", masked[1]);
+    assertThrows(IllegalArgumentException.class, () -> new SentenceMasker(1L, "MASK").mask("hello", 0));
+  }
+
+  @Test
+  public void masksIdsAtTheSamePositionsAsWords() {
+    SentenceMasker words = new SentenceMasker(11L, "MASK");
+    SentenceMasker ids = new SentenceMasker(11L, "MASK");
+    String[] tokens = SENTENCE.split(" ");
+
+    for (int round = 0; round < 50; round++) {
+      int[] sentence = new int[tokens.length];
+      for (int i = 0; i < sentence.length; i++) sentence[i] = i;
+
+      String[] masked = words.mask(SENTENCE, 3);
+      int[] replaced = ids.mask(sentence, 3, -1);
+
+      String[] maskedTokens = masked[0].split(" ");
+      String[] targets = masked[1].split(" ");
+      for (int i = 0; i < replaced.length; i++) {
+        assertEquals(-1, sentence[replaced[i]]);
+        assertEquals("MASK", maskedTokens[replaced[i]]);
+        assertEquals(tokens[replaced[i]], targets[i]);
+      }
+    }
+  }
+
+  @Test
+  public void fillsOccurrencesInOrder() {
+    assertEquals("a x b y", SentenceMasker.fill("a MASK b MASK", "MASK", "x", "y"));
+    assertEquals("a MASK b y", SentenceMasker.fill("a MASK b MASK", "MASK", null, "y"));
+    assertEquals("a x b MASK", SentenceMasker.fill("a MASK b MASK", "MASK", "x"));
+    assertEquals(0, SentenceMasker.count("no masks here", "MASK"));
+  }
+}
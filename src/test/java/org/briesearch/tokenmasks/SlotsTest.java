@@ -0,0 +1,68 @@
+package org.briesearch.tokenmasks;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Brissach
+ * @since 17.10.2026 12:30
+ * © token-masks - All Rights Reserved
+ */
+public class SlotsTest {
+
+  /* two masks over three tokens, sharing one softmax: the first block holds most of the mass, the second block
+   * is far more certain about its token */
+  private static final double[] OUTPUT = {
+    0.5, 0.2, 0.1,
+    0.01, 0.18, 0.01
+  };
+
+  @Test
+  public void renormalizesEverySlot() {
+    assertArrayEquals(new double[]{0.625, 0.25, 0.125}, Slots.probabilities(OUTPUT, 0, 3, 3), 1e-12);
+    assertArrayEquals(new double[]{0.05, 0.9, 0.05}, Slots.probabilities(OUTPUT, 1, 3, 3), 1e-12);
+  }
+
+  @Test
+  public void comparesSlotsOnTheirRenormalizedConfidence() {
+    // the raw maximum of the first slot is larger, but the second slot is the more confident one
+    assertEquals(1, Slots.mostConfident(OUTPUT, 2, 3, 3));
+    assertEquals(0, Slots.mostConfident(OUTPUT, 1, 3, 3));
+  }
+
+  @Test
+  public void ranksCompletionsByJointProbability() {
+    double[][] probabilities = {
+      Slots.probabilities(OUTPUT, 0, 3, 3),
+      Slots.probabilities(OUTPUT, 1, 3, 3)
+    };
+
+    // each slot answers differently, and the runner-ups of the first slot beat the runner-up of the second
+    int[][] ranked = Slots.top(probabilities, 4);
+    assertArrayEquals(new int[]{0, 1}, ranked[0]);
+    assertArrayEquals(new int[]{1, 1}, ranked[1]);
+    assertArrayEquals(new int[]{2, 1}, ranked[2]);
+    assertEquals(0, ranked[3][0]);
+  }
+
+  @Test
+  public void ignoresReservedTokenSlots() {
+    double[] output = {
+      0.1, 0.1, 0.3,
+      0.2, 0.1, 0.2
+    };
+    assertArrayEquals(new double[]{0.5, 0.5}, Slots.probabilities(output, 0, 3, 2), 1e-12);
+    assertEquals(1, Slots.mostConfident(output, 2, 3, 2));
+  }
+
+  @Test
+  public void returnsFewerCompletionsThanTokens() {
+    double[][] probabilities = {{0.7, 0.3}, {1.0}};
+    int[][] ranked = Slots.top(probabilities, 5);
+    assertEquals(2, ranked.length);
+    assertArrayEquals(new int[]{0, 0}, ranked[0]);
+    assertArrayEquals(new int[]{1, 0}, ranked[1]);
+  }
+}
@@ -0,0 +1,112 @@
+package org.briesearch.tokenmasks;
+
+import io.arctis.aurora.model.ActivationFunction;
+import io.arctis.aurora.ops.Kwargs;
+import io.arctis.aurora_deep.BuildLayer;
+import io.arctis.aurora_deep.MultiLayerNeuralNetwork;
+import org.briesearch.tokenmasks.metrics.Metrics;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * @author Brissach
+ * @since 17.10.2026 16:20
+ * © token-masks - All Rights Reserved
+ */
+public class TrainerTest {
+
+  private static final int BATCH = 10;
+
+  @Test
+  public void measuresEveryStreamedEpochWhenEvalEveryExceedsItsBatches() {
+    for (int depth : new int[]{1, 2}) {
+      for (int count : new int[]{25, 20}) {
+        Recorder recorder = new Recorder();
+        Kwargs kwargs = new Kwargs(
+          "batch_size", BATCH, "eval_every", 1000, "max_epochs", 5, "pipeline_depth", depth, "threads", 1
+        );
+        Trainer trainer = trainer(kwargs).metrics(recorder);
+
+        trainer.fit(samples(count), new Index(), 0.1, 1.0);
+
+        String run = "depth " + depth + ", " + count + " samples";
+        assertEquals(run, 1, recorder.losses.size());
+        assertFalse(run, Double.isNaN(recorder.losses.get(0)));
+      }
+    }
+  }
+
+  @Test
+  public void stopsStreamedTrainingWithoutMeasuredStepsAtMaxEpochs() {
+    Recorder recorder = new Recorder();
+    Trainer trainer = trainer(new Kwargs("batch_size", BATCH, "eval_every", 1000, "max_epochs", 3, "threads", 1))
+      .metrics(recorder);
+
+    trainer.fit(samples(25), new Index(), 0.1, 0.0);
+
+    assertEquals(3, recorder.losses.size());
+    for (double loss : recorder.losses)
+      assertFalse(Double.isNaN(loss));
+  }
+
+  private static Trainer trainer(Kwargs kwargs) {
+    MultiLayerNeuralNetwork network = MultiLayerNeuralNetwork.configureContexts()
+      .seed(24L)
+      .inputSize(1)
+      .addLayer(new BuildLayer()
+        .size(4)
+        .activation(ActivationFunction.ARCTAN))
+      .outputLayer(new BuildLayer()
+        .size(1)
+        .activation(ActivationFunction.SOFTMAX))
+      .build();
+    return new Trainer(network, null, kwargs);
+  }
+
+  private static List<Integer> samples(int count) {
+    List<Integer> samples = new ArrayList<>(count);
+    for (int i = 0; i < count; i++)
+      samples.add(i);
+    return samples;
+  }
+
+  /**
+   * Writes a sample into the input and a constant target.
+   */
+  private static final class Index implements Trainer.BatchEncoder<Integer> {
+
+    @Override
+    public int inputWidth() {
+      return 1;
+    }
+
+    @Override
+    public int outputWidth() {
+      return 1;
+    }
+
+    @Override
+    public void encode(int row, Integer sample, double[] input, double[] output) {
+      input[0] = sample;
+      output[0] = 1.0;
+    }
+  }
+
+  /**
+   * Records the training loss of every epoch.
+   */
+  private static final class Recorder implements Metrics {
+
+    private final List<Double> losses = new ArrayList<>();
+
+    @Override
+    public void epoch(int epoch, double loss, double validation, long samples, long nanos) {
+      losses.add(loss);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package org.briesearch.tokenmasks.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Brissach
+ * @since 17.10.2026 14:20
+ * © token-masks - All Rights Reserved
+ */
+public class HistogramTest {
+
+  @Test
+  public void keepsSmallValuesExact() {
+    for (int value = 0; value < 16; value++) {
+      assertEquals(value, Histogram.bucket(value));
+      assertEquals(value, Histogram.lowerBound(value));
+    }
+  }
+
+  @Test
+  public void splitsEveryPowerOfTwoIntoSixteenBuckets() {
+    assertEquals(16, Histogram.bucket(16));
+    assertEquals(31, Histogram.bucket(31));
+    assertEquals(32, Histogram.bucket(32));
+    assertEquals(32, Histogram.bucket(33));
+    assertEquals(33, Histogram.bucket(34));
+    assertEquals(47, Histogram.bucket(63));
+    assertEquals(48, Histogram.bucket(64));
+    assertEquals(48, Histogram.bucket(67));
+    assertEquals(49, Histogram.bucket(68));
+
+    assertEquals(32, Histogram.lowerBound(32));
+    assertEquals(34, Histogram.lowerBound(33));
+    assertEquals(64, Histogram.lowerBound(48));
+    assertEquals(68, Histogram.lowerBound(49));
+  }
+
+  @Test
+  public void boundsEveryValueByItsBucket() {
+    long[] values = {16, 17, 100, 1_000, 1_023, 1_024, 1_025, 123_456_789, 1L << 40, (1L << 40) - 1, Long.MAX_VALUE};
+    for (long value : values) {
+      int bucket = Histogram.bucket(value);
+      assertTrue("value " + value, Histogram.lowerBound(bucket) <= value);
+      if (value < Long.MAX_VALUE)
+        assertTrue("value " + value, value < Histogram.lowerBound(bucket + 1));
+      assertTrue("value " + value, value - Histogram.lowerBound(bucket) <= value / 16);
+    }
+    assertEquals(959, Histogram.bucket(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void ordersBucketsLikeTheirValues() {
+    int previous = 0;
+    for (long value = 0; value < 100_000; value++) {
+      int bucket = Histogram.bucket(value);
+      assertTrue("value " + value, bucket == previous || bucket == previous + 1);
+      assertTrue("value " + value, Histogram.lowerBound(bucket) <= value);
+      if (bucket != previous)
+        assertEquals("value " + value, value, Histogram.lowerBound(bucket));
+      previous = bucket;
+    }
+  }
+
+  @Test
+  public void reportsPercentilesAtTheirBucketLowerBound() {
+    Histogram histogram = new Histogram();
+    assertEquals(0L, histogram.percentile(50.0));
+
+    for (int value = 1; value <= 100; value++)
+      histogram.record(value * 10L);
+    histogram.record(-5);
+
+    assertEquals(101, histogram.count());
+    assertEquals(1_000, histogram.max());
+    assertEquals(50_500.0 / 101, histogram.mean(), 1e-9);
+    assertEquals(0L, histogram.percentile(0.0));
+    assertEquals(Histogram.lowerBound(Histogram.bucket(500)), histogram.percentile(50.0));
+    assertEquals(Histogram.lowerBound(Histogram.bucket(1_000)), histogram.percentile(100.0));
+    assertThrows(IllegalArgumentException.class, () -> histogram.percentile(100.5));
+  }
+}
@@ -0,0 +1,136 @@
+package org.briesearch.tokenmasks.sampling;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * @author Brissach
+ * @since 17.10.2026 11:40
+ * © token-masks - All Rights Reserved
+ */
+public class TokenSamplerTest {
+
+  private static final double[] PROBABILITIES = {0.1, 0.4, 0.05, 0.3, 0.15};
+  private static final int DRAWS = 200_000;
+  private static final double TOLERANCE = 0.01;
+
+  @Test
+  public void drawsProportionallyAtTemperatureOne() {
+    assertDistribution(PROBABILITIES, frequencies(TemperatureSampler.INSTANCE, PROBABILITIES, 1.0));
+  }
+
+  @Test
+  public void sharpensTheDistributionBelowTemperatureOne() {
+    double[] expected = new double[PROBABILITIES.length];
+    for (int i = 0; i < expected.length; i++)
+      expected[i] = PROBABILITIES[i] * PROBABILITIES[i];
+    assertDistribution(normalize(expected), frequencies(TemperatureSampler.INSTANCE, PROBABILITIES, 0.5));
+  }
+
+  @Test
+  public void selectsTheMostProbableTokenWithoutTemperature() {
+    Random random = new Random(1);
+    for (TokenSampler sampler : new TokenSampler[]{TemperatureSampler.INSTANCE, new TopKSampler(3), new NucleusSampler(0.9)})
+      for (int i = 0; i < 100; i++)
+        assertEquals(1, sampler.sample(PROBABILITIES, 0.0, random));
+  }
+
+  @Test
+  public void drawsAmongTheTopK() {
+    double[] expected = {0.0, 0.4 / 0.7, 0.0, 0.3 / 0.7, 0.0};
+    assertDistribution(expected, frequencies(new TopKSampler(2), PROBABILITIES, 1.0));
+  }
+
+  @Test
+  public void drawsTheOnlyCandidateOfTopOne() {
+    double[] expected = {0.0, 1.0, 0.0, 0.0, 0.0};
+    assertDistribution(expected, frequencies(new TopKSampler(1), PROBABILITIES, 2.0));
+  }
+
+  @Test
+  public void drawsAmongTheNucleus() {
+    double[] expected = {0.0, 0.4 / 0.85, 0.0, 0.3 / 0.85, 0.15 / 0.85};
+    assertDistribution(expected, frequencies(new NucleusSampler(0.8), PROBABILITIES, 1.0));
+  }
+
+  @Test
+  public void capsTheNucleusAtK() {
+    double[] expected = {0.0, 0.4 / 0.7, 0.0, 0.3 / 0.7, 0.0};
+    assertDistribution(expected, frequencies(new NucleusSampler(0.8, 2), PROBABILITIES, 1.0));
+  }
+
+  @Test
+  public void growsTheNucleusBeyondTheInitialCandidates() {
+    double[] probabilities = new double[200];
+    for (int i = 0; i < probabilities.length; i++)
+      probabilities[i] = i < 100 ? 0.009 : 0.001;
+
+    double[] expected = new double[probabilities.length];
+    Arrays.fill(expected, 0, 100, 0.01);
+    assertDistribution(expected, frequencies(new NucleusSampler(0.9), probabilities, 1.0));
+  }
+
+  @Test
+  public void rejectsInvalidParameters() {
+    assertThrows(IllegalArgumentException.class, () -> new TopKSampler(0));
+    assertThrows(IllegalArgumentException.class, () -> new NucleusSampler(0.0));
+    assertThrows(IllegalArgumentException.class, () -> new NucleusSampler(1.5));
+    assertThrows(IllegalArgumentException.class, () -> new NucleusSampler(0.5, 0));
+  }
+
+  @Test
+  public void selectsTheTopIndicesInDescendingOrder() {
+    int[] into = new int[3];
+    assertEquals(3, Candidates.top(PROBABILITIES, 3, into));
+    assertArrayEquals(new int[]{1, 3, 4}, into);
+
+    int[] all = new int[PROBABILITIES.length];
+    assertEquals(PROBABILITIES.length, Candidates.top(PROBABILITIES, 10, all));
+    assertArrayEquals(new int[]{1, 3, 4, 0, 2}, all);
+    assertEquals(1, Candidates.argmax(PROBABILITIES));
+  }
+
+  @Test
+  public void leavesTheProbabilitiesUntouched() {
+    double[] probabilities = PROBABILITIES.clone();
+    Random random = new Random(3);
+    new TopKSampler(2).sample(probabilities, 0.7, random);
+    new NucleusSampler(0.5).sample(probabilities, 0.7, random);
+    TemperatureSampler.INSTANCE.sample(probabilities, 0.7, random);
+    assertArrayEquals(PROBABILITIES, probabilities, 0.0);
+  }
+
+  private static double[] frequencies(TokenSampler sampler, double[] probabilities, double temperature) {
+    Random random = new Random(24);
+    double[] frequencies = new double[probabilities.length];
+    for (int i = 0; i < DRAWS; i++)
+      frequencies[sampler.sample(probabilities, temperature, random)]++;
+    for (int i = 0; i < frequencies.length; i++)
+      frequencies[i] /= DRAWS;
+    return frequencies;
+  }
+
+  private static void assertDistribution(double[] expected, double[] actual) {
+    for (int i = 0; i < expected.length; i++) {
+      if (expected[i] == 0.0)
+        assertEquals("token " + i + " " + Arrays.toString(actual), 0.0, actual[i], 0.0);
+      else
+        assertEquals("token " + i + " " + Arrays.toString(actual), expected[i], actual[i], TOLERANCE);
+    }
+  }
+
+  private static double[] normalize(double[] values) {
+    double total = 0.0;
+    for (double value : values) total += value;
+    double[] normalized = new double[values.length];
+    for (int i = 0; i < values.length; i++)
+      normalized[i] = values[i] / total;
+    return normalized;
+  }
+}
@@ -0,0 +1,96 @@
+package org.briesearch.tokenmasks.tokenizer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Brissach
+ * @since 17.10.2026 11:10
+ * © token-masks - All Rights Reserved
+ */
+public class DelimiterScannerTest {
+
+  private static final List<String> TEXTS = Arrays.asList(
+    "hello, how are you?",
+    "  (a+b)*c = 42;  ",
+    "MASK MASK the\tcat\nsat on 3 mats!",
+    "emails: x@y.z, paths: /usr/local\\bin, [tags] {braces} <angles>",
+    "quotes \"double\" 'single' `back` ~tilde &amp ^caret %percent $dollar #hash",
+    "unicode: naïve café — 日本語 ünïcode…",
+    "",
+    "   ",
+    "hellothere xhello unmasked"
+  );
+
+  @Test
+  public void matchesTheStandardPatternForEveryCharacter() {
+    DelimiterScanner scanner = DelimiterScanner.standard();
+    for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+      boolean expected = Tokenizer.DELIMITER.matcher(String.valueOf((char) c)).matches();
+      assertEquals("character " + c, expected, scanner.isDelimiter((char) c));
+    }
+  }
+
+  @Test
+  public void matchesExplicitCharacters() {
+    DelimiterScanner scanner = DelimiterScanner.of(",;|é");
+    assertTrue(scanner.isDelimiter(','));
+    assertTrue(scanner.isDelimiter('|'));
+    assertTrue(scanner.isDelimiter('é'));
+    assertFalse(scanner.isDelimiter('.'));
+    assertFalse(scanner.isDelimiter('a'));
+    assertFalse(scanner.isDelimiter(Character.MAX_VALUE));
+  }
+
+  @Test
+  public void matchesTheRegexWhitespaceClass() {
+    for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+      boolean expected = String.valueOf((char) c).matches("\\s");
+      assertEquals("character " + c, expected, DelimiterScanner.isWhitespace((char) c));
+    }
+  }
+
+  @Test
+  public void tokenizesLikeTheRegexPath() {
+    // an equal but distinct pattern instance is matched through the regex engine
+    Tokenizer scanned = fitted(new TokenizerBuilder());
+    Tokenizer matched = fitted(new TokenizerBuilder().withDelimiter(Pattern.compile(Tokenizer.DELIMITER.pattern())));
+
+    for (String text : TEXTS)
+      assertEquals(text, matched.tokenize(text), scanned.tokenize(text));
+  }
+
+  @Test
+  public void tokenizesExplicitDelimitersLikeTheirPattern() {
+    Tokenizer scanned = fitted(new TokenizerBuilder().withDelimiters(",;!?"));
+    Tokenizer matched = fitted(new TokenizerBuilder().withDelimiter(Pattern.compile("[,;!?]")));
+
+    for (String text : TEXTS)
+      assertEquals(text, matched.tokenize(text), scanned.tokenize(text));
+  }
+
+  @Test
+  public void tokenizesIdsLikeTheRegexPath() {
+    Tokenizer scanned = fitted(new TokenizerBuilder());
+    Tokenizer matched = fitted(new TokenizerBuilder().withDelimiter(Pattern.compile(Tokenizer.DELIMITER.pattern())));
+
+    for (String text : TEXTS) {
+      int[] expected = new int[64], actual = new int[64];
+      assertEquals(text, matched.tokenizeIds(text, expected, 0), scanned.tokenizeIds(text, actual, 0));
+      assertEquals(text, Arrays.toString(expected), Arrays.toString(actual));
+    }
+  }
+
+  private static Tokenizer fitted(TokenizerBuilder builder) {
+    Tokenizer tokenizer = builder.build();
+    tokenizer.fit("hello", "there", "how", "are", "you", "MASK", "the", "cat", "mask", "caf");
+    return tokenizer;
+  }
+}
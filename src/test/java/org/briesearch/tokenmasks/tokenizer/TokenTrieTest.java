@@ -0,0 +1,82 @@
+package org.briesearch.tokenmasks.tokenizer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Brissach
+ * @since 17.10.2026 10:55
+ * © token-masks - All Rights Reserved
+ */
+public class TokenTrieTest {
+
+  @Test
+  public void findsTheLongestPrefix() {
+    TokenTrie trie = new TokenTrie();
+    trie.insert("he", 0);
+    trie.insert("hello", 1);
+    trie.insert("help", 2);
+
+    assertEquals(match(1, 5), trie.longestPrefix("hellos", 0, 6, 3));
+    assertEquals(match(0, 2), trie.longestPrefix("hel", 0, 3, 3));
+    assertEquals(match(2, 4), trie.longestPrefix("xhelp", 1, 5, 3));
+    assertEquals(-1, trie.longestPrefix("xyz", 0, 3, 3));
+    assertEquals(-1, trie.longestPrefix("hello", 0, 0, 3));
+  }
+
+  @Test
+  public void stopsAtTheRangeEnd() {
+    TokenTrie trie = new TokenTrie();
+    trie.insert("he", 0);
+    trie.insert("hello", 1);
+
+    assertEquals(match(0, 2), trie.longestPrefix("hello", 0, 4, 2));
+  }
+
+  @Test
+  public void ignoresTokensBeyondTheVisibleCount() {
+    TokenTrie trie = new TokenTrie();
+    trie.insert("he", 0);
+    trie.insert("hello", 1);
+
+    assertEquals(match(0, 2), trie.longestPrefix("hello", 0, 5, 1));
+    assertEquals(-1, trie.longestPrefix("hello", 0, 5, 0));
+  }
+
+  @Test
+  public void keepsTheFirstIdOfADuplicate() {
+    TokenTrie trie = new TokenTrie();
+    trie.insert("mask", 3);
+    trie.insert("mask", 7);
+
+    assertEquals(match(3, 4), trie.longestPrefix("mask", 0, 4, 8));
+  }
+
+  @Test
+  public void keepsTransitionsAcrossGrowth() {
+    TokenTrie trie = new TokenTrie();
+    for (int i = 0; i < 5_000; i++)
+      trie.insert("t" + i + "é", i);
+
+    for (int i = 0; i < 5_000; i += 61) {
+      String token = "t" + i + "é";
+      assertEquals(match(i, token.length()), trie.longestPrefix(token + "!", 0, token.length() + 1, 5_000));
+    }
+  }
+
+  @Test
+  public void agreesWithTheVocabulary() {
+    Vocabulary vocabulary = new Vocabulary();
+    vocabulary.add("un");
+    vocabulary.add("unmask");
+    vocabulary.add("mask");
+
+    assertEquals(match(1, 6), vocabulary.longestPrefix("unmasked", 0, 8));
+    assertEquals(match(2, 4), vocabulary.longestPrefix("unmasked", 2, 8));
+  }
+
+  private static long match(int id, int length) {
+    return ((long) id << 32) | length;
+  }
+}
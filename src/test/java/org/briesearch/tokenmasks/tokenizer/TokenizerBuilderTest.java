@@ -0,0 +1,37 @@
+package org.briesearch.tokenmasks.tokenizer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * @author Brissach
+ * @since 17.10.2026 16:50
+ * © token-masks - All Rights Reserved
+ */
+public class TokenizerBuilderTest {
+
+  @Test
+  public void rejectsEmptyDelimiters() {
+    assertThrows(IllegalArgumentException.class, () -> new TokenizerBuilder().withDelimiters(""));
+  }
+
+  @Test
+  public void mapsTheUnknownTokenInTextToTheReservedIndex() {
+    Tokenizer[] tokenizers = {
+      new TokenizerBuilder().simpleTokens().unknownToken().build(),
+      new TokenizerBuilder().withDelimiters(",;").unknownToken().build()
+    };
+    for (Tokenizer tokenizer : tokenizers) {
+      tokenizer.fit("hello", "you");
+
+      assertEquals(Arrays.asList("hello", Tokenizer.UNKNOWN, "you"), tokenizer.tokenize("hello <unk> you"));
+      int[] ids = new int[3];
+      assertEquals(3, tokenizer.tokenizeIds("hello <unk> you", ids, 0));
+      assertEquals(tokenizer.unknownIndex(), ids[1]);
+    }
+  }
+}
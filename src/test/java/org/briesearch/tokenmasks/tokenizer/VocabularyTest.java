@@ -0,0 +1,113 @@
+package org.briesearch.tokenmasks.tokenizer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Brissach
+ * @since 17.10.2026 09:05
+ * © token-masks - All Rights Reserved
+ */
+public class VocabularyTest {
+
+  @Test
+  public void assignsDenseIdsInInsertionOrder() {
+    Vocabulary vocabulary = new Vocabulary();
+    assertEquals(0, vocabulary.add("hello"));
+    assertEquals(1, vocabulary.add("world"));
+    assertEquals(0, vocabulary.add("hello"));
+
+    assertEquals(2, vocabulary.size());
+    assertEquals(1, vocabulary.indexOf("world"));
+    assertEquals("hello", vocabulary.wordOf(0));
+    assertEquals(-1, vocabulary.indexOf("missing"));
+    assertFalse(vocabulary.contains("missing"));
+  }
+
+  @Test
+  public void rejectsIdsOutOfRange() {
+    Vocabulary vocabulary = new Vocabulary();
+    vocabulary.add("a");
+    assertNull(vocabulary.wordOf(-1));
+    assertNull(vocabulary.wordOf(1));
+  }
+
+  @Test
+  public void looksUpRangesWithoutCreatingStrings() {
+    Vocabulary vocabulary = new Vocabulary();
+    vocabulary.add("mask");
+    vocabulary.add("ask");
+
+    String text = "unmasked";
+    assertEquals(0, vocabulary.indexOf(text, 2, 6));
+    assertEquals(1, vocabulary.indexOf(text, 3, 6));
+    assertEquals(-1, vocabulary.indexOf(text, 2, 7));
+    assertEquals(-1, vocabulary.indexOf(text, 0, 0));
+  }
+
+  @Test
+  public void keepsIdsAcrossGrowth() {
+    Vocabulary vocabulary = new Vocabulary(4);
+    for (int i = 0; i < 10_000; i++)
+      assertEquals(i, vocabulary.add("token" + i));
+
+    assertEquals(10_000, vocabulary.size());
+    for (int i = 0; i < 10_000; i += 97) {
+      assertEquals(i, vocabulary.indexOf("token" + i));
+      assertEquals("token" + i, vocabulary.wordOf(i));
+    }
+  }
+
+  @Test
+  public void stopsAddingAtTheLimit() {
+    Vocabulary vocabulary = new Vocabulary();
+    assertEquals(0, vocabulary.add("a", 2));
+    assertEquals(1, vocabulary.add("b", 2));
+    assertEquals(-1, vocabulary.add("c", 2));
+    assertEquals(0, vocabulary.add("a", 2));
+    assertEquals(2, vocabulary.size());
+  }
+
+  @Test
+  public void frozenSnapshotKeepsIdsAndRejectsNewTokens() {
+    Vocabulary vocabulary = new Vocabulary();
+    vocabulary.add("a");
+    vocabulary.add("b");
+
+    Vocabulary frozen = vocabulary.freeze();
+    assertTrue(frozen.isFrozen());
+    assertSame(frozen, frozen.freeze());
+    assertEquals(1, frozen.indexOf("b"));
+    assertEquals(1, frozen.add("b"));
+    assertThrows(UnsupportedOperationException.class, () -> frozen.add("c"));
+
+    vocabulary.add("c");
+    assertEquals(3, vocabulary.size());
+    assertEquals(2, frozen.size());
+    assertEquals(-1, frozen.indexOf("c"));
+  }
+
+  @Test
+  public void viewsFollowTheVocabulary() {
+    Vocabulary vocabulary = new Vocabulary();
+    vocabulary.add("a");
+    Map<String, Integer> map = vocabulary.asMap();
+    vocabulary.add("b");
+
+    assertEquals(2, map.size());
+    assertEquals(Integer.valueOf(1), map.get("b"));
+    assertNull(map.get("c"));
+    assertArrayEquals(new Object[]{"a", "b"}, vocabulary.words().toArray());
+    assertEquals(Arrays.asList("a", "b"), vocabulary.words());
+  }
+}